@@ -1,18 +1,54 @@
 'use strict';
 
+// Classes in openchemlib/server are meant for use on the JVM only. They are not listed here,
+// so they aren't copied into the GWT source tree, which can't compile java.util.concurrent,
+// java.nio or java.util.zip based code.
+
+// Upstream classes are only forked here, where a change touches most of a class or adds a new
+// class. Smaller changes are applied to the upstream sources by the callbacks in 'changed'.
 const modified = [
-    'chem/AbstractDrawingObject',
-    'chem/DepictorTransformation',
+    // not yet part of OpenChemLib
+    'calc/TimeLimitThreadMaster', // ThreadMaster with a time limit
+    'chem/descriptor/FingerprintSimilaritySearcher', // popcount pruned Tanimoto search
+    'chem/prediction/IndexedFragment', // increment fragment with a screening index
+    'chem/prediction/PackedIDCodeList', // idcodes packed into one string, parsed on demand
+    'util/LongIndexMap', // open addressing long to int map
+
+    'chem/AbstractDrawingObject', // stub, drawing objects are not supported
+    'chem/AtomTypeCalculator', // atom types of all atoms from one neighbour traversal
+    'chem/Canonizer', // reusable instance, rank arrays not reallocated, ThreadMaster
+    'chem/DepictorTransformation', // java.awt.geom
+    'chem/ExtendedMolecule', // neighbours in CSR arrays
+    'chem/IDCodeParserWithoutCoordinateInvention', // molecule sized from idcode counts
+    'chem/Molecule', // flat coordinate arrays, no reflection based copyOf()
+    'chem/MolfileParser', // molecule sized from counts line
+    'chem/PropertyCalculator', // all properties from one atom traversal
+    'chem/RingCollection', // ring perception in linear time
+    'chem/SSSearcher', // selectivity ordered existence search, ThreadMaster
+    'chem/SSSearcherWithIndex', // batch search, compiled key fragments
+    'chem/SmilesParser', // molecule sized from SMILES counts
+
+    'chem/conf/Conformer', // uses the flat coordinate arrays of Molecule
+
+    'chem/descriptor/DescriptorHandlerFFP512', // cached key fragment index
+    'chem/descriptor/DescriptorHandlerHashedCFp', // every sphere fragment canonicalized once
+    'chem/descriptor/DescriptorHandlerSkeletonSpheres', // every sphere fragment canonicalized once
 
-    'chem/prediction/DruglikenessPredictor',
-    'chem/prediction/IncrementTable',
-    'chem/prediction/ToxicityPredictor',
+    'chem/io/SDFileParser', // field name discovery while reading records
+
+    'chem/prediction/CLogPPredictor', // shared atom type index
+    'chem/prediction/DruglikenessPredictor', // embedded increment table, fragment screening
+    'chem/prediction/IncrementTable', // embedded data instead of resource files
+    'chem/prediction/PolarSurfaceAreaPredictor', // shared atom type calculation
+    'chem/prediction/SolubilityPredictor', // shared atom type index
+    'chem/prediction/ToxicityPredictor', // embedded packed tables, loaded per risk type
 ];
 
 exports.modified = modified.map(getFilename);
 
 const changed = [
-    ['chem/Molecule', changeMolecule],
+    ['chem/coords/CoordinateInventor', addCoordinateInventorThreadMaster],
+    ['chem/reaction/MoleculeAutoMapper', addAutoMapperThreadMaster],
     ['share/gui/editor/Model', removePrintf]
 ];
 
@@ -47,18 +83,156 @@ function getFolderName(file) {
     return 'actelion/research/' + file;
 }
 
-function changeMolecule(molecule) {
-    molecule = molecule.replace('import java.lang.reflect.Array;\n', '');
-    const copyOf = 'protected final static Object copyOf';
-    const copyOfIndex = molecule.indexOf(copyOf);
-    if (copyOfIndex === -1) throw new Error('did not find copyOf method');
-    const closeIndex = molecule.indexOf('}', copyOfIndex);
-    molecule = molecule.substr(0, closeIndex + 1) + '*/' + molecule.substr(closeIndex + 1);
-    molecule = molecule.substr(0, copyOfIndex) + '/*' + molecule.substr(copyOfIndex);
-    molecule = molecule.replace(/\([^)]+\)copyOf/g, 'Arrays.copyOf');
-    return molecule;
-}
-
 function removePrintf(code) {
     return code.replace('System.out.printf', 'System.out.print')
 }
+
+function replaceOnce(code, search, replacement) {
+    const index = code.indexOf(search);
+    if (index === -1) throw new Error('did not find ' + search);
+    if (code.indexOf(search, index + 1) !== -1) throw new Error('found more than once: ' + search);
+    return code.substr(0, index) + replacement + code.substr(index + search.length);
+}
+
+// Lets a ThreadMaster stop the collision optimization of invent()
+function addCoordinateInventorThreadMaster(code) {
+    code = replaceOnce(code,
+        'import com.actelion.research.chem.*;\n',
+        'import com.actelion.research.calc.ThreadMaster;\n' +
+        'import com.actelion.research.chem.*;\n');
+    code = replaceOnce(code,
+        '\tprivate List<InventorTemplate> mCustomTemplateList;\n',
+        '\tprivate List<InventorTemplate> mCustomTemplateList;\n' +
+        '\tprivate ThreadMaster mThreadMaster;\n' +
+        '\tprivate boolean\t\tmIsCancelled;\n');
+    code = replaceOnce(code,
+        '\t/**\n\t * By providing a custom template list',
+        '\t/**\n' +
+        '\t * Defines a ThreadMaster, which is asked during the collision optimization of invent(),\n' +
+        '\t * whether to stop. If it stops the optimization, then invent() still assigns coordinates\n' +
+        '\t * to all atoms, which reflect the configuration, but may contain overlapping atoms.\n' +
+        '\t * @param threadMaster null or ThreadMaster, which may cut the optimization short\n' +
+        '\t */\n' +
+        '\tpublic void setThreadMaster(ThreadMaster threadMaster) {\n' +
+        '\t\tmThreadMaster = threadMaster;\n' +
+        '\t\t}\n' +
+        '\n\n' +
+        '\t/**\n' +
+        '\t * @return whether the ThreadMaster stopped the optimization of the last invent() call\n' +
+        '\t */\n' +
+        '\tpublic boolean isCancelled() {\n' +
+        '\t\treturn mIsCancelled;\n' +
+        '\t\t}\n' +
+        '\n\n' +
+        '\t/**\n\t * By providing a custom template list');
+    code = replaceOnce(code,
+        '\t\tmFFP = ffp;\n',
+        '\t\tmFFP = ffp;\n' +
+        '\t\tmIsCancelled = false;\n');
+    code = replaceOnce(code,
+        '\t\t\tfor (int flip=0; flip<TOTAL_FLIPS && collisionList.size()!=0; flip++) {\n',
+        '\t\t\tfor (int flip=0; flip<TOTAL_FLIPS && collisionList.size()!=0; flip++) {\n' +
+        '\t\t\t\tif (mustStop())\n' +
+        '\t\t\t\t\tbreak;\n' +
+        '\n');
+    code = replaceOnce(code,
+        '\t\t\tdo {\n\t\t\t\tnextAvailableRank = 9999;\n',
+        '\t\t\tdo {\n' +
+        '\t\t\t\tif (mustStop())\n' +
+        '\t\t\t\t\tbreak;\n' +
+        '\n' +
+        '\t\t\t\tnextAvailableRank = 9999;\n');
+    code = replaceOnce(code,
+        '\tprivate int[] getShortestConnection(',
+        '\tprivate boolean mustStop() {\n' +
+        '\t\tif (!mIsCancelled && mThreadMaster != null && mThreadMaster.threadMustDie())\n' +
+        '\t\t\tmIsCancelled = true;\n' +
+        '\t\treturn mIsCancelled;\n' +
+        '\t\t}\n' +
+        '\n\n' +
+        '\tprivate int[] getShortestConnection(');
+    return code;
+}
+
+// Lets a ThreadMaster stop autoMap() and the Canonizers it uses
+function addAutoMapperThreadMaster(code) {
+    code = replaceOnce(code,
+        'import com.actelion.research.chem.Canonizer;\n',
+        'import com.actelion.research.calc.ThreadMaster;\n' +
+        'import com.actelion.research.chem.Canonizer;\n');
+    code = replaceOnce(code,
+        '    AutoMapper mapper = null;\n',
+        '    AutoMapper mapper = null;\n' +
+        '    private DefaultMoleculeAutoMapper defaultMapper = null;\n');
+    code = replaceOnce(code,
+        '        mapper = new DefaultMoleculeAutoMapper(mol);\n    }\n',
+        '        defaultMapper = new DefaultMoleculeAutoMapper(mol);\n' +
+        '        mapper = defaultMapper;\n' +
+        '    }\n' +
+        '\n' +
+        '    /**\n' +
+        '     * Defines a ThreadMaster, which is asked during autoMap(), whether to stop.\n' +
+        '     * If it stops the mapping, then only part of the atoms receive mapping numbers.\n' +
+        '     * @param threadMaster null or ThreadMaster, which may stop the mapping\n' +
+        '     */\n' +
+        '    public void setThreadMaster(ThreadMaster threadMaster)\n' +
+        '    {\n' +
+        '        defaultMapper.setThreadMaster(threadMaster);\n' +
+        '    }\n' +
+        '\n' +
+        '    /**\n' +
+        '     * @return whether the ThreadMaster stopped the last autoMap() before it was complete\n' +
+        '     */\n' +
+        '    public boolean isCancelled()\n' +
+        '    {\n' +
+        '        return defaultMapper.isCancelled();\n' +
+        '    }\n');
+    code = replaceOnce(code,
+        '\tprivate boolean[]\t\t\tmMapNoInUse,mMatchHandled;\n',
+        '\tprivate boolean[]\t\t\tmMapNoInUse,mMatchHandled;\n' +
+        '\tprivate ThreadMaster\t\tmThreadMaster;\n' +
+        '\tprivate boolean\t\t\t\tmIsCancelled;\n');
+    code = replaceOnce(code,
+        '\tpublic void autoMap() {\n',
+        '\tpublic void setThreadMaster(ThreadMaster threadMaster) {\n' +
+        '\t\tmThreadMaster = threadMaster;\n' +
+        '\t\t}\n' +
+        '\n' +
+        '\tpublic boolean isCancelled() {\n' +
+        '\t\treturn mIsCancelled;\n' +
+        '\t\t}\n' +
+        '\n' +
+        '\tprivate boolean mustStop() {\n' +
+        '\t\tif (!mIsCancelled && mThreadMaster != null && mThreadMaster.threadMustDie())\n' +
+        '\t\t\tmIsCancelled = true;\n' +
+        '\t\treturn mIsCancelled;\n' +
+        '\t\t}\n' +
+        '\n' +
+        '\tpublic void autoMap() {\n');
+    code = replaceOnce(code,
+        '        mCurrentMapNo = 0;\n',
+        '        mCurrentMapNo = 0;\n' +
+        '\t\tmIsCancelled = false;\n');
+    code = replaceOnce(code,
+        '\t\tmatchFragments();\n\n' +
+        '\t\tmCanonizer = new Canonizer(mMol, Canonizer.CREATE_SYMMETRY_RANK);\n' +
+        '\t\tboolean found;\n' +
+        '\t\tdo {\n',
+        '\t\tmatchFragments();\n' +
+        '\t\tif (mustStop())\n' +
+        '\t\t\treturn;\n' +
+        '\n' +
+        '\t\tmCanonizer = new Canonizer(mMol, Canonizer.CREATE_SYMMETRY_RANK, mThreadMaster);\n' +
+        '\t\tboolean found;\n' +
+        '\t\tdo {\n' +
+        '\t\t\tif (mustStop())\n' +
+        '\t\t\t\treturn;\n' +
+        '\n');
+    code = replaceOnce(code,
+        '\t\t\tCanonizer canonizer = new Canonizer(fragment[i], Canonizer.ENCODE_ATOM_CUSTOM_LABELS);\n',
+        '\t\t\tif (mustStop())\n' +
+        '\t\t\t\treturn;\n' +
+        '\n' +
+        '\t\t\tCanonizer canonizer = new Canonizer(fragment[i], Canonizer.ENCODE_ATOM_CUSTOM_LABELS, mThreadMaster);\n');
+    return code;
+}
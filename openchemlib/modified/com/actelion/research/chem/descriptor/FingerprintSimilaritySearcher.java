@@ -0,0 +1,329 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+package com.actelion.research.chem.descriptor;
+
+import java.util.Arrays;
+
+/**
+ * FingerprintSimilaritySearcher finds the most similar fingerprints of a large, fixed set of
+ * binary fingerprints, e.g. FFP512 descriptors, for any number of query fingerprints.
+ * Similarities are Tanimoto coefficients, which are identical to the ones calculated by
+ * SSSearcherWithIndex.getSimilarityTanimoto().<br>
+ * All fingerprints are packed into one long array, which is sorted by the number of set bits.
+ * The bit counts are calculated once. Since the Tanimoto similarity of two fingerprints with
+ * a and b set bits cannot exceed min(a,b)/max(a,b), only those rows are compared with the query,
+ * whose bit count is within the range that can reach the similarity threshold.<br>
+ * A searcher may be used by multiple threads concurrently.
+ * Note: This class is meant for server-side use, because long arithmetic is slow in JavaScript.
+ */
+public class FingerprintSimilaritySearcher {
+	private int mIntCount,mWordCount,mRowCount,mMaxBitCount;
+	private long[] mFingerprint;	// mWordCount packed longs per row, rows sorted by bit count
+	private int[] mRowIndex;		// original index of every sorted row
+	private int[] mRowStart;		// first row with a given bit count
+
+	/**
+	 * Creates a searcher for the given fingerprints. All fingerprints must have the same length.
+	 * Null or empty fingerprints, i.e. failed descriptor calculations, are never reported as hits.
+	 * The fingerprint arrays are copied and may be changed afterwards.
+	 * @param fingerprint e.g. FFP512 descriptors as int[16]
+	 */
+	public FingerprintSimilaritySearcher(int[][] fingerprint) {
+		for (int[] fp:fingerprint) {
+			if (fp != null && fp.length != 0) {
+				if (mIntCount == 0)
+					mIntCount = fp.length;
+				else if (fp.length != mIntCount)
+					throw new IllegalArgumentException("Fingerprints differ in length.");
+				mRowCount++;
+				}
+			}
+
+		mWordCount = (mIntCount + 1) / 2;
+		mMaxBitCount = 32 * mIntCount;
+
+		int[] bitCount = new int[fingerprint.length];
+		mRowStart = new int[mMaxBitCount+2];
+		for (int i=0; i<fingerprint.length; i++) {
+			if (fingerprint[i] != null && fingerprint[i].length != 0) {
+				for (int fpInt:fingerprint[i])
+					bitCount[i] += Integer.bitCount(fpInt);
+				mRowStart[bitCount[i]+1]++;
+				}
+			}
+		for (int i=1; i<mRowStart.length; i++)
+			mRowStart[i] += mRowStart[i-1];
+
+		mFingerprint = new long[mRowCount*mWordCount];
+		mRowIndex = new int[mRowCount];
+		int[] nextRow = Arrays.copyOf(mRowStart, mRowStart.length);
+		for (int i=0; i<fingerprint.length; i++) {
+			if (fingerprint[i] != null && fingerprint[i].length != 0) {
+				int row = nextRow[bitCount[i]]++;
+				mRowIndex[row] = i;
+				pack(fingerprint[i], mFingerprint, row*mWordCount);
+				}
+			}
+		}
+
+	/**
+	 * @return number of searchable fingerprints, i.e. not counting null or empty ones
+	 */
+	public int getFingerprintCount() {
+		return mRowCount;
+		}
+
+	/**
+	 * Finds all fingerprints whose similarity to the query is at least the given threshold.
+	 * @param query fingerprint of the same length as the searched fingerprints
+	 * @param threshold minimum similarity; should be larger than 0.0 to benefit from bit count pruning
+	 * @return hits sorted by decreasing similarity and, within equal similarities, by increasing index
+	 */
+	public Hit[] findAboveThreshold(int[] query, float threshold) {
+		long[] q = packQuery(query);
+		if (q == null)
+			return new Hit[0];
+
+		int a = getBitCount(q);
+		int[] index = new int[16];
+		float[] similarity = new float[16];
+		int count = 0;
+		for (int b=0; b<=mMaxBitCount; b++) {
+			if (mRowStart[b] == mRowStart[b+1] || getMaxSimilarity(a, b) < threshold)
+				continue;
+
+			for (int row=mRowStart[b]; row<mRowStart[b+1]; row++) {
+				float s = getSimilarity(q, a, row, b);
+				if (s >= threshold) {
+					if (count == index.length) {
+						index = Arrays.copyOf(index, 2*count);
+						similarity = Arrays.copyOf(similarity, 2*count);
+						}
+					index[count] = mRowIndex[row];
+					similarity[count] = s;
+					count++;
+					}
+				}
+			}
+
+		return createSortedHits(index, similarity, count);
+		}
+
+	/**
+	 * Finds the k most similar fingerprints to the query. Rows are visited in order of
+	 * decreasing maximum possible similarity and the search stops as soon as no remaining
+	 * row can displace any of the k best hits found so far.
+	 * @param query fingerprint of the same length as the searched fingerprints
+	 * @param k maximum number of hits
+	 * @return up to k hits sorted by decreasing similarity and, within equal similarities, by increasing index
+	 */
+	public Hit[] findTopK(int[] query, int k) {
+		return findTopK(query, k, 0.0f);
+		}
+
+	/**
+	 * Finds the k most similar fingerprints to the query, which reach the given similarity threshold.
+	 * @param query fingerprint of the same length as the searched fingerprints
+	 * @param k maximum number of hits
+	 * @param threshold minimum similarity
+	 * @return up to k hits sorted by decreasing similarity and, within equal similarities, by increasing index
+	 */
+	public Hit[] findTopK(int[] query, int k, float threshold) {
+		long[] q = packQuery(query);
+		if (q == null || k <= 0)
+			return new Hit[0];
+
+		int a = getBitCount(q);
+
+		// min-heap of the k best hits with the worst hit at position 0
+		int[] heapIndex = new int[Math.min(k, mRowCount)];
+		float[] heapSimilarity = new float[heapIndex.length];
+		int heapSize = 0;
+
+		// visit bit counts in order of decreasing maximum similarity, starting from a
+		int lowB = Math.min(a, mMaxBitCount);
+		int highB = lowB + 1;
+		while (lowB >= 0 || highB <= mMaxBitCount) {
+			float lowMax = (lowB >= 0) ? getMaxSimilarity(a, lowB) : -1.0f;
+			float highMax = (highB <= mMaxBitCount) ? getMaxSimilarity(a, highB) : -1.0f;
+			int b = (lowMax >= highMax) ? lowB-- : highB++;
+			float maxSimilarity = Math.max(lowMax, highMax);
+
+			float minSimilarity = (heapSize == heapIndex.length) ? Math.max(threshold, heapSimilarity[0]) : threshold;
+			if (maxSimilarity < minSimilarity)
+				break;
+
+			for (int row=mRowStart[b]; row<mRowStart[b+1]; row++) {
+				float s = getSimilarity(q, a, row, b);
+				if (s < threshold)
+					continue;
+
+				int index = mRowIndex[row];
+				if (heapSize < heapIndex.length) {
+					heapIndex[heapSize] = index;
+					heapSimilarity[heapSize] = s;
+					siftUp(heapIndex, heapSimilarity, heapSize++);
+					}
+				else if (isBetter(s, index, heapSimilarity[0], heapIndex[0])) {
+					heapIndex[0] = index;
+					heapSimilarity[0] = s;
+					siftDown(heapIndex, heapSimilarity, heapSize);
+					}
+				}
+			}
+
+		return createSortedHits(heapIndex, heapSimilarity, heapSize);
+		}
+
+	/**
+	 * Upper bound of the Tanimoto similarity of two fingerprints with a and b set bits.
+	 * It is calculated with the same float division as the similarity itself, such that
+	 * no similarity can exceed its bound because of rounding.
+	 */
+	private float getMaxSimilarity(int a, int b) {
+		return (a == b) ? 1.0f : (a < b) ? (float)a/(float)b : (float)b/(float)a;
+		}
+
+	private float getSimilarity(long[] q, int a, int row, int b) {
+		int offset = row*mWordCount;
+		int shared = 0;
+		for (int i=0; i<mWordCount; i++)
+			shared += Long.bitCount(q[i] & mFingerprint[offset+i]);
+		int union = a + b - shared;
+		return (union == 0) ? 0.0f : (float)shared/(float)union;
+		}
+
+	private long[] packQuery(int[] query) {
+		if (query == null || query.length == 0 || mRowCount == 0)
+			return null;
+		if (query.length != mIntCount)
+			throw new IllegalArgumentException("Query fingerprint length differs from searched fingerprints.");
+
+		long[] q = new long[mWordCount];
+		pack(query, q, 0);
+		return q;
+		}
+
+	private static void pack(int[] fp, long[] target, int offset) {
+		for (int i=0; i<fp.length; i++) {
+			long l = fp[i] & 0xFFFFFFFFL;
+			target[offset+i/2] |= ((i & 1) == 0) ? l << 32 : l;
+			}
+		}
+
+	private static int getBitCount(long[] q) {
+		int count = 0;
+		for (long l:q)
+			count += Long.bitCount(l);
+		return count;
+		}
+
+	/**
+	 * @return true if hit 1 ranks before hit 2, i.e. has a higher similarity or an equal similarity and a lower index
+	 */
+	private static boolean isBetter(float similarity1, int index1, float similarity2, int index2) {
+		return similarity1 > similarity2 || (similarity1 == similarity2 && index1 < index2);
+		}
+
+	private static void siftUp(int[] index, float[] similarity, int i) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isBetter(similarity[parent], index[parent], similarity[i], index[i]))
+				break;
+			swap(index, similarity, i, parent);
+			i = parent;
+			}
+		}
+
+	private static void siftDown(int[] index, float[] similarity, int size) {
+		int i = 0;
+		while (true) {
+			int worst = i;
+			for (int child=2*i+1; child<=2*i+2 && child<size; child++)
+				if (isBetter(similarity[worst], index[worst], similarity[child], index[child]))
+					worst = child;
+			if (worst == i)
+				break;
+			swap(index, similarity, i, worst);
+			i = worst;
+			}
+		}
+
+	private static void swap(int[] index, float[] similarity, int i, int j) {
+		int ti = index[i];
+		index[i] = index[j];
+		index[j] = ti;
+		float ts = similarity[i];
+		similarity[i] = similarity[j];
+		similarity[j] = ts;
+		}
+
+	private static Hit[] createSortedHits(int[] index, float[] similarity, int count) {
+		Hit[] hit = new Hit[count];
+		for (int i=0; i<count; i++)
+			hit[i] = new Hit(index[i], similarity[i]);
+		Arrays.sort(hit);
+		return hit;
+		}
+
+	/**
+	 * A fingerprint found by a similarity search.
+	 */
+	public static class Hit implements Comparable<Hit> {
+		private int mIndex;
+		private float mSimilarity;
+
+		public Hit(int index, float similarity) {
+			mIndex = index;
+			mSimilarity = similarity;
+			}
+
+		/**
+		 * @return index of the fingerprint in the array passed to the searcher's constructor
+		 */
+		public int getIndex() {
+			return mIndex;
+			}
+
+		public float getSimilarity() {
+			return mSimilarity;
+			}
+
+		@Override
+		public int compareTo(Hit o) {
+			return isBetter(mSimilarity, mIndex, o.mSimilarity, o.mIndex) ? -1
+				 : isBetter(o.mSimilarity, o.mIndex, mSimilarity, mIndex) ? 1 : 0;
+			}
+		}
+	}
@@ -33,7 +33,6 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.actelion.research.chem.prediction;
 
 import com.actelion.research.calc.ThreadMaster;
-import com.actelion.research.chem.IDCodeParser;
 import com.actelion.research.chem.SSSearcher;
 import com.actelion.research.chem.StereoMolecule;
 
@@ -64,32 +63,58 @@ public class DruglikenessPredictor {
 
 
 	public double assessDruglikeness(StereoMolecule testMolecule, ThreadMaster threadMaster) {
-		ParameterizedStringList detail = new ParameterizedStringList();
+		return assessDruglikeness(testMolecule, threadMaster, true);
+		}
+
+
+	/**
+	 * Calculates the druglikeness from the increments of all fragments of the increment
+	 * table, which are found in the test molecule. The molecule's features and index are
+	 * set up once and fragments, whose index bits are not covered by the molecule's index,
+	 * are rejected before graph matching.
+	 * @param testMolecule
+	 * @param threadMaster may be null
+	 * @param createDetail if false, then only the score is calculated and getDetail() is not updated
+	 * @return druglikeness or cDruglikenessUnknown
+	 */
+	public double assessDruglikeness(StereoMolecule testMolecule, ThreadMaster threadMaster, boolean createDetail) {
+		ParameterizedStringList detail = createDetail ? new ParameterizedStringList() : null;
 
 		if (!sInitialized) {
-			detail.add("Druglikeness predictor not properly initialized.",
-								ParameterizedStringList.cStringTypeText);
+			if (createDetail)
+				detail.add("Druglikeness predictor not properly initialized.",
+									ParameterizedStringList.cStringTypeText);
 			return cDruglikenessUnknown;
 			}
 
-		detail.add("Found sub-structure fragments and their contributions:",
-							ParameterizedStringList.cStringTypeText);
-		detail.add("(yellow atoms carry at least one more substituent)",
-							ParameterizedStringList.cStringTypeText);
+		if (createDetail) {
+			detail.add("Found sub-structure fragments and their contributions:",
+								ParameterizedStringList.cStringTypeText);
+			detail.add("(yellow atoms carry at least one more substituent)",
+								ParameterizedStringList.cStringTypeText);
+			}
 		double nastyIncrementSum = 0.0;
 		double incrementSum = 0.0;
 		int fragmentCount = 0;
 		SSSearcher sss = new SSSearcher(SSSearcher.cMatchAtomCharge);
-		StereoMolecule fragment = new StereoMolecule();
+		sss.setThreadMaster(threadMaster);
+		sss.setMolecule(testMolecule);
+		int[] index = IndexedFragment.createMoleculeIndex(testMolecule);
 		for (int i=0; i<sIncrementTable.getSize(); i++) {
 			if (threadMaster != null && threadMaster.threadMustDie())
 				return cDruglikenessUnknown;
 
+			IndexedFragment fragment = sIncrementTable.getIndexedFragment(i);
+			if (!fragment.passesIndex(index))
+				continue;
+
 			Thread.yield();
 
-			new IDCodeParser(false).parse(fragment, sIncrementTable.getFragment(i));
-			sss.setMol(fragment, testMolecule);
-			if (sss.isFragmentInMolecule()) {
+			boolean isMatch = fragment.isFragmentInMolecule(sss, null);
+			if (sss.isCancelled())
+				return cDruglikenessUnknown;
+
+			if (isMatch) {
 				double increment = sIncrementTable.getIncrement(i);
 				if (increment < -1)
 					nastyIncrementSum += increment;
@@ -98,10 +123,12 @@ public class DruglikenessPredictor {
 					fragmentCount++;
 					}
 
-				detail.add(sIncrementTable.getFragment(i),
-								   ParameterizedStringList.cStringTypeIDCode);
-				detail.add(Double.toString(increment),
-								   ParameterizedStringList.cStringTypeDouble);
+				if (createDetail) {
+					detail.add(sIncrementTable.getFragment(i),
+									   ParameterizedStringList.cStringTypeIDCode);
+					detail.add(Double.toString(increment),
+									   ParameterizedStringList.cStringTypeDouble);
+					}
 				}
 			}
 
@@ -114,7 +141,8 @@ public class DruglikenessPredictor {
 			// with more than 50 found fragments as more drug-like
 		druglikeness = druglikeness + 0.0625 * (fragmentCount - 40);
 
-		mDetail = detail;
+		if (createDetail)
+			mDetail = detail;
 		return druglikeness;
 		}
 
@@ -125,11 +153,10 @@ public class DruglikenessPredictor {
 		double incrementSum = 0.0;
 		int fragmentCount = 0;
 		SSSearcher sss = new SSSearcher(SSSearcher.cMatchAtomCharge);
-		StereoMolecule fragment = new StereoMolecule();
+		sss.setMolecule(testMolecule);
+		int[] index = IndexedFragment.createMoleculeIndex(testMolecule);
 		for (int i=0; i<sIncrementTable.getSize(); i++) {
-			new IDCodeParser(false).parse(fragment, sIncrementTable.getFragment(i));
-			sss.setMol(fragment, testMolecule);
-			if (sss.isFragmentInMolecule()) {
+			if (sIncrementTable.getIndexedFragment(i).isFragmentInMolecule(sss, index)) {
 				incrementSum += sIncrementTable.getIncrement(i);
 				fragmentCount++;
 				}
@@ -81,15 +81,30 @@ public class IncrementTable {
 	protected double getIncrement(int i) {
 		return mRecords.get(i).mIncrement;
 		}
+
+
+	/**
+	 * @param i
+	 * @return fragment prepared for the substructure search with SSSearcher.cMatchAtomCharge
+	 */
+	protected IndexedFragment getIndexedFragment(int i) {
+		return mRecords.get(i).mIndexedFragment;
+		}
 	}
 
 
 class IncrementTableRecord {
 	String	mIDCode;
 	double	mIncrement;
+	final IndexedFragment	mIndexedFragment;
 
+	/**
+	 * The fragment is parsed, compiled and indexed, when the table is built,
+	 * such that a completely built table may be shared between threads.
+	 */
 	protected IncrementTableRecord(String idcode, double increment) {
 		mIDCode = idcode;
 		mIncrement = increment;
+		mIndexedFragment = new IndexedFragment(idcode);
 		}
 	}
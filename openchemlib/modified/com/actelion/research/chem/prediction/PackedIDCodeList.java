@@ -0,0 +1,116 @@
+/*
+
+Copyright (c) 2015-2016, cheminfo
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of {{ project }} nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+
+package com.actelion.research.chem.prediction;
+
+/**
+ * Read-only view of a newline separated idcode table, as it is embedded as string constant
+ * in the predictor classes. The table is not split into individual Strings. Only the start
+ * offsets of the lines are kept, and lines are compared character by character within the
+ * packed table. If the lines are sorted, contains() locates an idcode by binary search.
+ */
+class PackedIDCodeList {
+	private final String mTable;
+	private final int[] mStart;	// line start offsets; mStart[size] is table length + 1
+
+	protected PackedIDCodeList(String table) {
+		mTable = table;
+
+		int count = 1;
+		for (int i=0; i<table.length(); i++)
+			if (table.charAt(i) == '\n')
+				count++;
+
+		mStart = new int[count+1];
+		int line = 1;
+		for (int i=0; i<table.length(); i++)
+			if (table.charAt(i) == '\n')
+				mStart[line++] = i+1;
+		mStart[count] = table.length()+1;
+		}
+
+
+	protected int getSize() {
+		return mStart.length - 1;
+		}
+
+
+	/**
+	 * Creates a new String from the i-th line of the table.
+	 * @param i
+	 * @return idcode
+	 */
+	protected String getIDCode(int i) {
+		return mTable.substring(mStart[i], mStart[i+1]-1);
+		}
+
+
+	/**
+	 * Requires the table lines to be sorted in ascending String.compareTo() order.
+	 * @param idcode
+	 * @return whether the table contains idcode as a line
+	 */
+	protected boolean contains(String idcode) {
+		int low = 0;
+		int high = getSize() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareLine(middle, idcode);
+			if (comparison == 0)
+				return true;
+			if (comparison < 0)
+				low = middle + 1;
+			else
+				high = middle - 1;
+			}
+		return false;
+		}
+
+
+	/**
+	 * @param i
+	 * @param idcode
+	 * @return same as getIDCode(i).compareTo(idcode)
+	 */
+	private int compareLine(int i, String idcode) {
+		int start = mStart[i];
+		int length = mStart[i+1] - 1 - start;
+		int commonLength = Math.min(length, idcode.length());
+		for (int j=0; j<commonLength; j++) {
+			char c = mTable.charAt(start+j);
+			if (c != idcode.charAt(j))
+				return c - idcode.charAt(j);
+			}
+		return length - idcode.length();
+		}
+	}
@@ -0,0 +1,159 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+package com.actelion.research.chem.descriptor;
+
+import com.actelion.research.chem.StereoMolecule;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelDescriptorCalculator calculates one or more descriptors for a list of molecules
+ * using all cores of the machine. The molecule list is split into blocks, which are
+ * processed by the threads of a fork-join pool. Every block works with its own thread-safe
+ * copies of the descriptor handlers, i.e. handlers with internal state, e.g. a searcher
+ * or canonizer, are never shared between threads. Descriptors are returned in the order
+ * of the input molecules.<br>
+ * Note: This class is meant for server-side use and is not available in the JavaScript build.
+ */
+public class ParallelDescriptorCalculator {
+	private static final int DEFAULT_BLOCK_SIZE = 64;
+
+	private ForkJoinPool mPool;
+	private int mBlockSize;
+
+	/**
+	 * Creates a calculator, which uses as many threads as there are available processors.
+	 */
+	public ParallelDescriptorCalculator() {
+		this(Runtime.getRuntime().availableProcessors());
+		}
+
+	/**
+	 * @param threadCount number of worker threads
+	 */
+	public ParallelDescriptorCalculator(int threadCount) {
+		mPool = new ForkJoinPool(Math.max(1, threadCount));
+		mBlockSize = DEFAULT_BLOCK_SIZE;
+		}
+
+	/**
+	 * Defines the number of molecules that are processed by one task with the same
+	 * set of handler copies. Smaller blocks balance the load better, larger blocks
+	 * reduce the overhead of task creation and handler copying.
+	 * @param blockSize
+	 */
+	public void setBlockSize(int blockSize) {
+		mBlockSize = Math.max(1, blockSize);
+		}
+
+	/**
+	 * Calculates one descriptor for every molecule. Molecules are not copied, but the
+	 * descriptor calculation may update their helper arrays. Therefore, the same
+	 * molecule object must not be passed twice or used elsewhere during this call.
+	 * @param molList
+	 * @param handler
+	 * @return descriptors in the order of molList; null for null molecules
+	 */
+	public Object[] createDescriptors(List<StereoMolecule> molList, DescriptorHandler<?,StereoMolecule> handler) {
+		Object[][] descriptor = createDescriptors(molList, new DescriptorHandler[] { handler });
+		Object[] result = new Object[descriptor.length];
+		for (int i=0; i<descriptor.length; i++)
+			result[i] = descriptor[i][0];
+		return result;
+		}
+
+	/**
+	 * Calculates multiple descriptors for every molecule. Every molecule is processed
+	 * by one thread only, which calculates all requested descriptors one after another.
+	 * @param molList
+	 * @param handler descriptor handlers, which must handle StereoMolecules
+	 * @return descriptor[molecule][handler] in the order of molList and handlers
+	 */
+	@SuppressWarnings("rawtypes")
+	public Object[][] createDescriptors(List<StereoMolecule> molList, DescriptorHandler[] handler) {
+		Object[][] descriptor = new Object[molList.size()][];
+		if (molList.size() != 0)
+			mPool.invoke(new DescriptorTask(molList, handler, descriptor, 0, molList.size()));
+		return descriptor;
+		}
+
+	/**
+	 * Stops the worker threads. The calculator cannot be used afterwards.
+	 */
+	public void shutdown() {
+		mPool.shutdown();
+		}
+
+	@SuppressWarnings({"rawtypes","serial"})
+	private class DescriptorTask extends RecursiveAction {
+		private List<StereoMolecule> mMolList;
+		private DescriptorHandler[] mHandler;
+		private Object[][] mDescriptor;
+		private int mFrom,mTo;
+
+		public DescriptorTask(List<StereoMolecule> molList, DescriptorHandler[] handler, Object[][] descriptor, int from, int to) {
+			mMolList = molList;
+			mHandler = handler;
+			mDescriptor = descriptor;
+			mFrom = from;
+			mTo = to;
+			}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void compute() {
+			if (mTo - mFrom > mBlockSize) {
+				int middle = (mFrom + mTo) / 2;
+				invokeAll(new DescriptorTask(mMolList, mHandler, mDescriptor, mFrom, middle),
+						  new DescriptorTask(mMolList, mHandler, mDescriptor, middle, mTo));
+				return;
+				}
+
+			DescriptorHandler[] handler = new DescriptorHandler[mHandler.length];
+			for (int i=0; i<handler.length; i++)
+				handler[i] = mHandler[i].getThreadSafeCopy();
+
+			for (int m=mFrom; m<mTo; m++) {
+				StereoMolecule mol = mMolList.get(m);
+				Object[] descriptor = new Object[handler.length];
+				if (mol != null)
+					for (int i=0; i<handler.length; i++)
+						descriptor[i] = handler[i].createDescriptor(mol);
+				mDescriptor[m] = descriptor;
+				}
+			}
+		}
+	}
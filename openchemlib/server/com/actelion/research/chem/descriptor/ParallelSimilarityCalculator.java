@@ -0,0 +1,347 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+
+package com.actelion.research.chem.descriptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelSimilarityCalculator calculates the similarities of all pairs of descriptors of a list
+ * using all cores of the machine, e.g. as input for clustering. It works with any
+ * ISimilarityCalculator, e.g. a DescriptorHandler. The upper triangle of the similarity matrix
+ * is divided into square tiles, such that every task compares a small block of descriptors with
+ * one other block at a time. Every task uses its own thread-safe copy of the similarity calculator.
+ * Descriptors are passed to the calculator as they are, i.e. the calculator decides, which
+ * similarity null or failed descriptors get.<br>
+ * The result is either a dense matrix, which needs n*n floats, or sparse neighbour lists, which
+ * contain only pairs with a similarity of at least a given cutoff and need memory proportional
+ * to the number of these pairs.<br>
+ * Note: This class is meant for server-side use and is not available in the JavaScript build.
+ */
+public class ParallelSimilarityCalculator {
+	private static final int DEFAULT_TILE_SIZE = 256;
+
+	private ForkJoinPool mPool;
+	private int mTileSize;
+
+	/**
+	 * Creates a calculator, which uses as many threads as there are available processors.
+	 */
+	public ParallelSimilarityCalculator() {
+		this(Runtime.getRuntime().availableProcessors());
+		}
+
+	/**
+	 * @param threadCount number of worker threads
+	 */
+	public ParallelSimilarityCalculator(int threadCount) {
+		mPool = new ForkJoinPool(Math.max(1, threadCount));
+		mTileSize = DEFAULT_TILE_SIZE;
+		}
+
+	/**
+	 * Defines the number of descriptors per tile edge. Every task processes one row of tiles
+	 * and compares its descriptors with one block of column descriptors after the other.
+	 * @param tileSize
+	 */
+	public void setTileSize(int tileSize) {
+		mTileSize = Math.max(1, tileSize);
+		}
+
+	/**
+	 * Calculates the complete symmetric similarity matrix including its diagonal.
+	 * Only one half of the matrix is calculated; the other half is copied.
+	 * @param descriptorList
+	 * @param calculator
+	 * @return similarity[i][j] of descriptors i and j
+	 */
+	public <T> float[][] createMatrix(List<T> descriptorList, ISimilarityCalculator<T> calculator) {
+		int count = descriptorList.size();
+		float[][] similarity = new float[count][count];
+		if (count != 0)
+			mPool.invoke(new MatrixTask<T>(descriptorList.toArray(), calculator, similarity, 0, getTileCount(count)));
+		return similarity;
+		}
+
+	/**
+	 * Finds for every descriptor all other descriptors with a similarity of at least the cutoff.
+	 * Memory consumption is proportional to the number of found pairs.
+	 * @param descriptorList
+	 * @param calculator
+	 * @param cutoff minimum similarity of reported pairs
+	 * @return neighbour lists of all descriptors
+	 */
+	public <T> NeighbourLists createNeighbourLists(List<T> descriptorList, ISimilarityCalculator<T> calculator, float cutoff) {
+		int count = descriptorList.size();
+		int tileCount = getTileCount(count);
+		PairBuffer[] pairBuffer = new PairBuffer[tileCount];
+		if (count != 0)
+			mPool.invoke(new NeighbourTask<T>(descriptorList.toArray(), calculator, cutoff, pairBuffer, 0, tileCount));
+		return new NeighbourLists(count, pairBuffer);
+		}
+
+	/**
+	 * Stops the worker threads. The calculator cannot be used afterwards.
+	 */
+	public void shutdown() {
+		mPool.shutdown();
+		}
+
+	private int getTileCount(int count) {
+		return (count + mTileSize - 1) / mTileSize;
+		}
+
+	/**
+	 * Neighbour lists of all descriptors, i.e. for every descriptor the indexes and similarities
+	 * of all other descriptors with a similarity of at least the cutoff sorted by index.
+	 */
+	public static class NeighbourLists {
+		private int[][] mNeighbour;
+		private float[][] mSimilarity;
+
+		private NeighbourLists(int count, PairBuffer[] pairBuffer) {
+			int[] neighbourCount = new int[count];
+			for (PairBuffer buffer:pairBuffer) {
+				for (int i=0; i<buffer.mSize; i++) {
+					neighbourCount[buffer.mIndex1[i]]++;
+					neighbourCount[buffer.mIndex2[i]]++;
+					}
+				}
+
+			// neighbour index in the upper and float bits in the lower half, such that sorting sorts by index
+			long[][] neighbour = new long[count][];
+			for (int i=0; i<count; i++)
+				neighbour[i] = new long[neighbourCount[i]];
+			Arrays.fill(neighbourCount, 0);
+			for (int b=0; b<pairBuffer.length; b++) {
+				PairBuffer buffer = pairBuffer[b];
+				for (int i=0; i<buffer.mSize; i++) {
+					int index1 = buffer.mIndex1[i];
+					int index2 = buffer.mIndex2[i];
+					long bits = Float.floatToRawIntBits(buffer.mSimilarity[i]) & 0xFFFFFFFFL;
+					neighbour[index1][neighbourCount[index1]++] = ((long)index2 << 32) | bits;
+					neighbour[index2][neighbourCount[index2]++] = ((long)index1 << 32) | bits;
+					}
+				pairBuffer[b] = null;	// allow garbage collection while building the lists
+				}
+
+			mNeighbour = new int[count][];
+			mSimilarity = new float[count][];
+			for (int i=0; i<count; i++) {
+				Arrays.sort(neighbour[i]);
+				mNeighbour[i] = new int[neighbour[i].length];
+				mSimilarity[i] = new float[neighbour[i].length];
+				for (int j=0; j<neighbour[i].length; j++) {
+					mNeighbour[i][j] = (int)(neighbour[i][j] >>> 32);
+					mSimilarity[i][j] = Float.intBitsToFloat((int)neighbour[i][j]);
+					}
+				neighbour[i] = null;
+				}
+			}
+
+		public int getDescriptorCount() {
+			return mNeighbour.length;
+			}
+
+		public int getNeighbourCount(int index) {
+			return mNeighbour[index].length;
+			}
+
+		/**
+		 * @param index
+		 * @return indexes of all neighbours of the descriptor in increasing order; must not be changed
+		 */
+		public int[] getNeighbours(int index) {
+			return mNeighbour[index];
+			}
+
+		/**
+		 * @param index
+		 * @return similarities to all neighbours in the order of getNeighbours(); must not be changed
+		 */
+		public float[] getSimilarities(int index) {
+			return mSimilarity[index];
+			}
+
+		/**
+		 * @return total number of descriptor pairs with a similarity of at least the cutoff
+		 */
+		public long getPairCount() {
+			long count = 0;
+			for (int[] neighbour:mNeighbour)
+				count += neighbour.length;
+			return count / 2;
+			}
+		}
+
+	/**
+	 * Growable list of descriptor pairs found by one task.
+	 */
+	private static class PairBuffer {
+		private int[] mIndex1 = new int[64];
+		private int[] mIndex2 = new int[64];
+		private float[] mSimilarity = new float[64];
+		private int mSize;
+
+		private void add(int index1, int index2, float similarity) {
+			if (mSize == mIndex1.length) {
+				int capacity = 2 * mSize;
+				mIndex1 = Arrays.copyOf(mIndex1, capacity);
+				mIndex2 = Arrays.copyOf(mIndex2, capacity);
+				mSimilarity = Arrays.copyOf(mSimilarity, capacity);
+				}
+			mIndex1[mSize] = index1;
+			mIndex2[mSize] = index2;
+			mSimilarity[mSize] = similarity;
+			mSize++;
+			}
+		}
+
+	/**
+	 * Splits the range of tile rows until every task processes one row of tiles,
+	 * i.e. the descriptors of one block compared with themselves and all following blocks.
+	 */
+	@SuppressWarnings("serial")
+	private abstract class TileRowTask<T> extends RecursiveAction {
+		protected Object[] mDescriptor;
+		protected ISimilarityCalculator<T> mCalculator;
+		private int mFromTile,mToTile;
+
+		public TileRowTask(Object[] descriptor, ISimilarityCalculator<T> calculator, int fromTile, int toTile) {
+			mDescriptor = descriptor;
+			mCalculator = calculator;
+			mFromTile = fromTile;
+			mToTile = toTile;
+			}
+
+		protected abstract TileRowTask<T> createTask(int fromTile, int toTile);
+
+		protected abstract void processTileRow(int from, int to, ISimilarityCalculator<T> calculator);
+
+		@Override
+		protected void compute() {
+			if (mToTile - mFromTile > 1) {
+				int middle = (mFromTile + mToTile) / 2;
+				invokeAll(createTask(mFromTile, middle), createTask(middle, mToTile));
+				return;
+				}
+
+			int from = mFromTile * mTileSize;
+			processTileRow(from, Math.min(from + mTileSize, mDescriptor.length), mCalculator.getThreadSafeCopy());
+			}
+
+		/**
+		 * Calculates the similarities of all pairs (row,column) with from <= row < to and row < column,
+		 * where columns are taken from one block after the other to keep the working set small.
+		 */
+		@SuppressWarnings("unchecked")
+		protected void calculateTileRow(int from, int to, ISimilarityCalculator<T> calculator, PairConsumer consumer) {
+			for (int columnFrom=from; columnFrom<mDescriptor.length; columnFrom+=mTileSize) {
+				int columnTo = Math.min(columnFrom + mTileSize, mDescriptor.length);
+				for (int row=from; row<to; row++) {
+					T d1 = (T)mDescriptor[row];
+					for (int column=Math.max(columnFrom, row+1); column<columnTo; column++)
+						consumer.accept(row, column, calculator.getSimilarity(d1, (T)mDescriptor[column]));
+					}
+				}
+			}
+		}
+
+	private interface PairConsumer {
+		void accept(int row, int column, float similarity);
+		}
+
+	@SuppressWarnings("serial")
+	private class MatrixTask<T> extends TileRowTask<T> {
+		private float[][] mMatrix;
+
+		public MatrixTask(Object[] descriptor, ISimilarityCalculator<T> calculator, float[][] matrix, int fromTile, int toTile) {
+			super(descriptor, calculator, fromTile, toTile);
+			mMatrix = matrix;
+			}
+
+		@Override
+		protected TileRowTask<T> createTask(int fromTile, int toTile) {
+			return new MatrixTask<T>(mDescriptor, mCalculator, mMatrix, fromTile, toTile);
+			}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void processTileRow(int from, int to, ISimilarityCalculator<T> calculator) {
+			for (int row=from; row<to; row++)
+				mMatrix[row][row] = calculator.getSimilarity((T)mDescriptor[row], (T)mDescriptor[row]);
+
+			calculateTileRow(from, to, calculator, new PairConsumer() {
+				@Override
+				public void accept(int row, int column, float similarity) {
+					mMatrix[row][column] = similarity;
+					mMatrix[column][row] = similarity;
+					}
+				} );
+			}
+		}
+
+	@SuppressWarnings("serial")
+	private class NeighbourTask<T> extends TileRowTask<T> {
+		private float mCutoff;
+		private PairBuffer[] mPairBuffer;
+
+		public NeighbourTask(Object[] descriptor, ISimilarityCalculator<T> calculator, float cutoff, PairBuffer[] pairBuffer, int fromTile, int toTile) {
+			super(descriptor, calculator, fromTile, toTile);
+			mCutoff = cutoff;
+			mPairBuffer = pairBuffer;
+			}
+
+		@Override
+		protected TileRowTask<T> createTask(int fromTile, int toTile) {
+			return new NeighbourTask<T>(mDescriptor, mCalculator, mCutoff, mPairBuffer, fromTile, toTile);
+			}
+
+		@Override
+		protected void processTileRow(int from, int to, ISimilarityCalculator<T> calculator) {
+			final PairBuffer buffer = new PairBuffer();
+			calculateTileRow(from, to, calculator, new PairConsumer() {
+				@Override
+				public void accept(int row, int column, float similarity) {
+					if (similarity >= mCutoff)
+						buffer.add(row, column, similarity);
+					}
+				} );
+			mPairBuffer[from / mTileSize] = buffer;
+			}
+		}
+	}
@@ -0,0 +1,806 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+package com.actelion.research.chem.io;
+
+import com.actelion.research.chem.MolfileParser;
+import com.actelion.research.chem.StereoMolecule;
+import com.actelion.research.chem.UniqueStringList;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * SD-file parser working directly on bytes of a ByteBuffer or of a memory mapped file.
+ * Record boundaries are found by a byte scan and the molfile block and requested field
+ * values of the current record are located as slices of the buffer, which is returned by
+ * getBuffer(). Strings are only created, if getNextMolFile(), getFieldData() or
+ * getMolecule() are called.<br>
+ * Files are mapped in windows of up to 1 GB, which are moved forward as parsing proceeds.
+ * Thus, files of any size can be parsed. Random access to records is possible after
+ * createIndex() or readIndex() have provided record offsets.<br>
+ * Field values are the lines between a field header and the next empty line. Lines starting
+ * with '>' are field headers only after the molfile or after the empty line ending a value.
+ * Slices keep the original line endings, while Strings returned by this class
+ * use '\n' as line separator as SDFileParser does.<br>
+ * Note: This class is meant for server-side use and is not available in the JavaScript build.
+ */
+public class MappedSDFileParser extends CompoundFileParser {
+	private static final int DEFAULT_RECORDS_TO_INSPECT = 10240;
+	private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+	private static final int INDEX_FILE_MAGIC = 0x53444932;	// 'SDI2'
+	private static final int INDEX_CHECKSUM_BYTES = 4096;
+
+	// line types as determined by classifyLine(); a record starts like after a LINE_MOLFILE line
+	private static final int LINE_MOLFILE = 0;
+	private static final int LINE_MOLFILE_END = 1;
+	private static final int LINE_FIELD_HEADER = 2;
+	private static final int LINE_FIELD_VALUE = 3;
+	private static final int LINE_EMPTY = 4;
+	private static final byte[][] cIDFieldNameBytes = new byte[SDFileParser.cIDFieldNames.length][];
+	static {
+		for (int i=0; i<SDFileParser.cIDFieldNames.length; i++)
+			cIDFieldNameBytes[i] = SDFileParser.cIDFieldNames[i].getBytes(StandardCharsets.UTF_8);
+		}
+
+	private File			mFile;
+	private long			mFileSize,mBufferStart,mRecordPosition,mNextRecordPosition,mFirstRecordPosition;
+	private int				mWindowSize;
+	private ByteBuffer		mBuffer;
+	private String[]		mFieldName;
+	private byte[][]		mFieldNameBytes;
+	private int[]			mFieldOffset,mFieldLength;
+	private int				mMolfileOffset,mMolfileLength,mIDFieldIndex;
+	private boolean			mMolfileHasEnd;
+	private long[]			mRecordOffset;
+	private int				mRecordCount;
+	private StereoMolecule	mMol;
+
+	/**
+	 * Creates a parser on a memory mapped SD-file.
+	 * @param file
+	 * @param fieldName names of fields, which shall be accessible; null to determine all from the file
+	 * @throws IOException
+	 */
+	public MappedSDFileParser(File file, String[] fieldName) throws IOException {
+		mFile = file;
+		mFileSize = file.length();
+		mWindowSize = DEFAULT_WINDOW_SIZE;
+		map(0);
+		init(skipBOM(0), fieldName);
+		}
+
+	/**
+	 * Creates a parser on SD-file content of the given buffer, starting at its current position
+	 * and ending at its limit. Offsets returned by this parser are absolute indexes into getBuffer().
+	 * @param buffer
+	 * @param fieldName names of fields, which shall be accessible; null to determine all from the buffer
+	 */
+	public MappedSDFileParser(ByteBuffer buffer, String[] fieldName) {
+		mBuffer = buffer.duplicate();
+		mFileSize = mBuffer.limit();
+		init(skipBOM(mBuffer.position()), fieldName);
+		}
+
+	private void init(long firstRecordPosition, String[] fieldName) {
+		mFirstRecordPosition = firstRecordPosition;
+		mNextRecordPosition = firstRecordPosition;
+		mRecordPosition = -1;
+		setFieldNames(fieldName);
+		}
+
+	private void setFieldNames(String[] fieldName) {
+		mFieldName = fieldName;
+		if (fieldName != null) {
+			mFieldNameBytes = new byte[fieldName.length][];
+			for (int i=0; i<fieldName.length; i++)
+				mFieldNameBytes[i] = fieldName[i].getBytes(StandardCharsets.UTF_8);
+			mFieldOffset = new int[fieldName.length];
+			mFieldLength = new int[fieldName.length];
+			Arrays.fill(mFieldOffset, -1);
+			}
+		}
+
+	private long skipBOM(long position) {
+		int i = (int)(position - mBufferStart);
+		if (mBuffer.limit() - i >= 3
+		 && mBuffer.get(i) == (byte)0xEF
+		 && mBuffer.get(i+1) == (byte)0xBB
+		 && mBuffer.get(i+2) == (byte)0xBF)
+			return position + 3;
+		return position;
+		}
+
+	/**
+	 * Maps a window of the file starting at the given file position.
+	 * For buffer based parsers the complete buffer is always available.
+	 */
+	private void map(long position) throws IOException {
+		if (mFile == null)
+			return;
+
+		int size = (int)Math.min(mWindowSize, mFileSize - position);
+		RandomAccessFile raf = new RandomAccessFile(mFile, "r");
+		try {
+			mBuffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+			mBufferStart = position;
+			}
+		finally {
+			raf.close();
+			}
+		}
+
+	private boolean isBufferAtEnd() {
+		return mBufferStart + mBuffer.limit() >= mFileSize;
+		}
+
+	/**
+	 * Maps a new window starting at position, because the current window ends within
+	 * the record or line starting there. If the current window already starts at
+	 * position, then the window size is doubled.
+	 */
+	private void remap(long position) throws IOException {
+		if (position == mBufferStart) {
+			if (mWindowSize > Integer.MAX_VALUE / 2)
+				throw new IOException("SD-file record too large.");
+			mWindowSize *= 2;
+			}
+		map(position);
+		}
+
+	/**
+	 * Makes sure that the buffer contains the given file position.
+	 */
+	private void ensureMapped(long position) throws IOException {
+		if (position < mBufferStart || position >= mBufferStart + mBuffer.limit())
+			map(position);
+		}
+
+	/**
+	 * @return the buffer, which contains the current record; slice offsets refer to it
+	 */
+	public ByteBuffer getBuffer() {
+		return mBuffer;
+		}
+
+	/**
+	 * @return file position (or buffer index) of the first byte of the current record
+	 */
+	public long getRecordPosition() {
+		return mRecordPosition;
+		}
+
+	/**
+	 * @return index of the first molfile byte of the current record in getBuffer()
+	 */
+	public int getMolfileOffset() {
+		return mMolfileOffset;
+		}
+
+	/**
+	 * @return number of bytes of the current record's molfile including its 'M  END' line
+	 */
+	public int getMolfileLength() {
+		return mMolfileLength;
+		}
+
+	/**
+	 * @param field index into the field names
+	 * @return index of first value byte in getBuffer() or -1, if the current record has no such field
+	 */
+	public int getFieldDataOffset(int field) {
+		return (mFieldOffset == null) ? -1 : mFieldOffset[field];
+		}
+
+	/**
+	 * @param field index into the field names
+	 * @return number of field value bytes excluding the final line ending
+	 */
+	public int getFieldDataLength(int field) {
+		return (mFieldOffset == null || mFieldOffset[field] == -1) ? 0 : mFieldLength[field];
+		}
+
+	/**
+	 * Depending on whether a record index was created or read, this returns the number
+	 * of records of the file or -1.
+	 * @return number of rows or -1
+	 */
+	@Override
+	public int getRowCount() {
+		return (mRecordOffset == null) ? -1 : mRecordCount;
+		}
+
+	/**
+	 * Scans the entire file for record boundaries and keeps the file position of every record.
+	 * This allows moveToRecord() and getRowCount(). If no field names were given, then
+	 * the names of all fields are collected in the same pass. The current record is not changed.
+	 * @return number of records
+	 * @throws IOException
+	 */
+	public int createIndex() throws IOException {
+		UniqueStringList fieldNameList = (mFieldName == null) ? new UniqueStringList() : null;
+		long[] recordOffset = new long[1024];
+		int recordCount = 0;
+		long recordStart = mFirstRecordPosition;
+		long position = mFirstRecordPosition;	// always a line start
+		int lineType = LINE_MOLFILE;
+		while (position < mFileSize) {
+			ensureMapped(position);
+			int limit = mBuffer.limit();
+			boolean isLast = isBufferAtEnd();
+			int index = (int)(position - mBufferStart);
+			while (index < limit) {
+				if (!isLast && limit - index < 4)
+					break;
+
+				boolean isRecordEnd = (limit - index >= 4
+									&& mBuffer.get(index) == '$'
+									&& mBuffer.get(index+1) == '$'
+									&& mBuffer.get(index+2) == '$'
+									&& mBuffer.get(index+3) == '$');
+
+				int lineEnd = index;
+				while (lineEnd < limit && mBuffer.get(lineEnd) != '\n')
+					lineEnd++;
+				if (lineEnd == limit && !isLast)
+					break;
+
+				if (isRecordEnd) {
+					if (recordCount == recordOffset.length)
+						recordOffset = Arrays.copyOf(recordOffset, 2 * recordCount);
+					recordOffset[recordCount++] = recordStart;
+					recordStart = mBufferStart + lineEnd + 1;
+					lineType = LINE_MOLFILE;
+					}
+				else if (fieldNameList != null) {
+					int contentEnd = (lineEnd > index && mBuffer.get(lineEnd-1) == '\r') ? lineEnd - 1 : lineEnd;
+					lineType = classifyLine(index, contentEnd, lineType);
+					if (lineType == LINE_FIELD_HEADER)
+						addFieldName(index, contentEnd, fieldNameList);
+					}
+
+				index = lineEnd + 1;
+				}
+
+			long newPosition = mBufferStart + index;
+			if (isLast)
+				break;
+			if (newPosition == position)
+				remap(position);
+			position = newPosition;
+			}
+
+		mRecordOffset = recordOffset;
+		mRecordCount = recordCount;
+		if (fieldNameList != null) {
+			setFieldNames(fieldNameList.toArray());
+			reparseCurrentRecord();
+			}
+		return recordCount;
+		}
+
+	/**
+	 * Parses the current record again, e.g. after field names were defined.
+	 */
+	private void reparseCurrentRecord() {
+		if (mRecordPosition != -1) {
+			long nextRecordPosition = mNextRecordPosition;
+			mNextRecordPosition = mRecordPosition;
+			advanceToNext();
+			mNextRecordPosition = nextRecordPosition;
+			}
+		}
+
+	/**
+	 * Writes the record index created by createIndex() and the field names into a sidecar
+	 * file, from which readIndex() can restore both when the SD-file is opened again.
+	 * @param indexFile
+	 * @throws IOException
+	 */
+	public void writeIndex(File indexFile) throws IOException {
+		if (mRecordOffset == null)
+			createIndex();
+
+		long checksum = calculateChecksum();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+		try {
+			out.writeInt(INDEX_FILE_MAGIC);
+			out.writeLong(mFileSize);
+			out.writeLong(getLastModified());
+			out.writeLong(checksum);
+			out.writeInt(mRecordCount);
+			for (int i=0; i<mRecordCount; i++)
+				out.writeLong(mRecordOffset[i]);
+			out.writeInt(mFieldName.length);
+			for (String fieldName:mFieldName)
+				out.writeUTF(fieldName);
+			}
+		finally {
+			out.close();
+			}
+		}
+
+	/**
+	 * Reads a record index from a sidecar file written by writeIndex(). The index is
+	 * only accepted, if it was created from a file of the same size, modification time
+	 * and checksum of the first 4096 bytes. Otherwise, the SD-file was changed and a new
+	 * index must be created. If no field names were passed to the constructor, then the
+	 * field names of the index file are used.
+	 * @param indexFile
+	 * @return false if indexFile is no index or doesn't match the SD-file
+	 * @throws IOException
+	 */
+	public boolean readIndex(File indexFile) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+		try {
+			if (in.readInt() != INDEX_FILE_MAGIC
+			 || in.readLong() != mFileSize
+			 || in.readLong() != getLastModified()
+			 || in.readLong() != calculateChecksum())
+				return false;
+
+			int recordCount = in.readInt();
+			long[] recordOffset = new long[recordCount];
+			for (int i=0; i<recordCount; i++)
+				recordOffset[i] = in.readLong();
+
+			String[] fieldName = new String[in.readInt()];
+			for (int i=0; i<fieldName.length; i++)
+				fieldName[i] = in.readUTF();
+
+			mRecordOffset = recordOffset;
+			mRecordCount = recordCount;
+			if (mFieldName == null) {
+				setFieldNames(fieldName);
+				reparseCurrentRecord();
+				}
+			return true;
+			}
+		finally {
+			in.close();
+			}
+		}
+
+	/**
+	 * @return modification time of the SD-file or 0 for buffer based parsers
+	 */
+	private long getLastModified() {
+		return (mFile == null) ? 0L : mFile.lastModified();
+		}
+
+	/**
+	 * Calculates a CRC32 checksum of the first bytes of the SD-file content without
+	 * changing the currently mapped window.
+	 */
+	private long calculateChecksum() throws IOException {
+		int length = (int)Math.min(INDEX_CHECKSUM_BYTES, mFileSize - mFirstRecordPosition);
+		byte[] bytes = new byte[length];
+		if (mFile == null) {
+			for (int i=0; i<length; i++)
+				bytes[i] = mBuffer.get((int)mFirstRecordPosition+i);
+			}
+		else {
+			RandomAccessFile raf = new RandomAccessFile(mFile, "r");
+			try {
+				raf.seek(mFirstRecordPosition);
+				raf.readFully(bytes);
+				}
+			finally {
+				raf.close();
+				}
+			}
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, length);
+		return crc.getValue();
+		}
+
+	/**
+	 * Positions the parser such that the next call of next() makes the given record the current one.
+	 * Requires an index created by createIndex() or read by readIndex().
+	 * @param record
+	 */
+	public void moveToRecord(int record) {
+		if (mRecordOffset == null)
+			throw new IllegalStateException("No record index available.");
+		if (record < 0 || record >= mRecordCount)
+			throw new IndexOutOfBoundsException("Record "+record+" of "+mRecordCount);
+
+		mNextRecordPosition = mRecordOffset[record];
+		}
+
+	@Override
+	protected boolean advanceToNext() {
+		mMol = null;
+		if (mBuffer == null)
+			return false;
+
+		try {
+			while (true) {
+				if (mNextRecordPosition >= mFileSize)
+					return false;
+
+				ensureMapped(mNextRecordPosition);
+				int end = parseRecord((int)(mNextRecordPosition - mBufferStart));
+				if (end != -1) {
+					mRecordPosition = mNextRecordPosition;
+					mNextRecordPosition = mBufferStart + end;
+					return true;
+					}
+
+				if (isBufferAtEnd()) {
+					mNextRecordPosition = mFileSize;
+					return false;
+					}
+
+				remap(mNextRecordPosition);
+				}
+			}
+		catch (IOException ioe) {
+			mBuffer = null;
+			return false;
+			}
+		}
+
+	/**
+	 * Locates molfile and field value slices of the record starting at index start.
+	 * @return index of the first byte after the record or -1, if the buffer ends within the record
+	 */
+	private int parseRecord(int start) {
+		int limit = mBuffer.limit();
+		boolean isLast = isBufferAtEnd();
+
+		if (mFieldOffset != null)
+			Arrays.fill(mFieldOffset, -1);
+		mIDFieldIndex = -1;
+		mMolfileOffset = start;
+		mMolfileLength = -1;
+		mMolfileHasEnd = false;
+
+		int fieldIndex = -1;
+		int lineType = LINE_MOLFILE;
+		int index = start;
+		while (index < limit) {
+			int lineEnd = index;
+			while (lineEnd < limit && mBuffer.get(lineEnd) != '\n')
+				lineEnd++;
+			if (lineEnd == limit && !isLast)
+				return -1;
+
+			int next = Math.min(lineEnd + 1, limit);
+			int contentEnd = (lineEnd > index && mBuffer.get(lineEnd-1) == '\r') ? lineEnd - 1 : lineEnd;
+
+			if (isRecordEnd(index, contentEnd)) {
+				if (mMolfileLength == -1)
+					mMolfileLength = index - start;
+				return next;
+				}
+
+			lineType = classifyLine(index, contentEnd, lineType);
+			switch (lineType) {
+			case LINE_MOLFILE_END:
+				mMolfileLength = next - start;
+				mMolfileHasEnd = true;
+				break;
+			case LINE_FIELD_HEADER:
+				if (mMolfileLength == -1)	// sd-record with molfile without 'M  END'
+					mMolfileLength = index - start;
+				fieldIndex = (mFieldName == null) ? -1 : parseFieldHeader(index, contentEnd);
+				break;
+			case LINE_FIELD_VALUE:
+				if (fieldIndex != -1) {
+					if (mFieldOffset[fieldIndex] == -1)
+						mFieldOffset[fieldIndex] = index;
+					mFieldLength[fieldIndex] = contentEnd - mFieldOffset[fieldIndex];
+					}
+				break;
+			case LINE_EMPTY:
+				fieldIndex = -1;
+				break;
+				}
+
+			index = next;
+			}
+
+		return -1;
+		}
+
+	/**
+	 * Determines the type of a line from its content and the type of the previous line of the
+	 * same record. Lines starting with '>' are field headers only, if they follow the molfile
+	 * or an empty line. Within a field value they are value lines.
+	 * @param lineStart
+	 * @param contentEnd line end excluding line separator characters
+	 * @param previousLineType type of previous line or LINE_MOLFILE for the first line of a record
+	 * @return one of the LINE_ types
+	 */
+	private int classifyLine(int lineStart, int contentEnd, int previousLineType) {
+		boolean startsWithBracket = (contentEnd > lineStart && mBuffer.get(lineStart) == '>');
+		if (previousLineType == LINE_MOLFILE)
+			return startsWithBracket ? LINE_FIELD_HEADER
+				 : startsWith(lineStart, contentEnd, "M  END") ? LINE_MOLFILE_END : LINE_MOLFILE;
+
+		if (contentEnd == lineStart)
+			return LINE_EMPTY;
+
+		return (startsWithBracket && (previousLineType == LINE_MOLFILE_END || previousLineType == LINE_EMPTY)) ?
+				LINE_FIELD_HEADER : LINE_FIELD_VALUE;
+		}
+
+	/**
+	 * Finds the index of a requested field from a field header line and checks,
+	 * whether the field qualifies as compound identifier.
+	 * @return field index or -1, if the field is not requested or was already seen in this record
+	 */
+	private int parseFieldHeader(int lineStart, int lineEnd) {
+		long nameRange = findFieldName(lineStart, lineEnd);
+		if (nameRange == -1) {
+			String name = extractDTFieldName(lineStart, lineEnd);
+			if (name == null)
+				return -1;
+			byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			for (int i=0; i<mFieldNameBytes.length; i++)
+				if (Arrays.equals(nameBytes, mFieldNameBytes[i]))
+					return (mFieldOffset[i] == -1) ? i : -1;
+			return -1;
+			}
+
+		int nameStart = (int)(nameRange >>> 32);
+		int nameEnd = (int)nameRange;
+
+		int fieldIndex = -1;
+		for (int i=0; i<mFieldNameBytes.length; i++) {
+			if (equals(nameStart, nameEnd, mFieldNameBytes[i])) {
+				fieldIndex = i;
+				break;
+				}
+			}
+
+		if (mIDFieldIndex == -1) {
+			for (byte[] idName:cIDFieldNameBytes) {
+				if (equals(nameStart, nameEnd, idName)) {
+					mIDFieldIndex = fieldIndex;
+					break;
+					}
+				}
+			}
+
+		return (fieldIndex == -1 || mFieldOffset[fieldIndex] == -1) ? fieldIndex : -1;
+		}
+
+	/**
+	 * Locates the field name between '<' and '>' of a field header line.
+	 * @return name start index in the upper and name end index in the lower 32 bits or -1
+	 */
+	private long findFieldName(int lineStart, int lineEnd) {
+		int nameStart = -1;
+		int nameEnd = -1;
+		for (int i=lineStart+1; i<lineEnd; i++) {
+			byte b = mBuffer.get(i);
+			if (b == '<') {
+				if (nameStart != -1)
+					return -1;
+				nameStart = i+1;
+				}
+			else if (b == '>') {
+				if (nameEnd != -1)
+					return -1;
+				nameEnd = i;
+				}
+			}
+
+		return (nameStart == -1 || nameStart > nameEnd) ? -1 : ((long)nameStart << 32) | nameEnd;
+		}
+
+	private void addFieldName(int lineStart, int lineEnd, UniqueStringList fieldNameList) {
+		long nameRange = findFieldName(lineStart, lineEnd);
+		String fieldName = (nameRange == -1) ? extractDTFieldName(lineStart, lineEnd)
+				: decode((int)(nameRange >>> 32), (int)nameRange - (int)(nameRange >>> 32));
+		if (fieldName != null)
+			fieldNameList.addString(fieldName);
+		}
+
+	/**
+	 * Extracts MACCS-II field numbers, which have format DTn.
+	 */
+	private String extractDTFieldName(int lineStart, int lineEnd) {
+		String line = decode(lineStart, lineEnd - lineStart);
+		int index = line.indexOf("DT", 1);
+		if (index == -1)
+			return null;
+
+		int i = index+2;
+		while (i < line.length() && Character.isDigit(line.charAt(i)))
+			i++;
+
+		return (i == index+2) ? null : line.substring(index, i);
+		}
+
+	private boolean isRecordEnd(int lineStart, int lineEnd) {
+		return lineEnd - lineStart >= 4
+			&& mBuffer.get(lineStart) == '$'
+			&& mBuffer.get(lineStart+1) == '$'
+			&& mBuffer.get(lineStart+2) == '$'
+			&& mBuffer.get(lineStart+3) == '$';
+		}
+
+	private boolean startsWith(int lineStart, int lineEnd, String s) {
+		if (lineEnd - lineStart < s.length())
+			return false;
+		for (int i=0; i<s.length(); i++)
+			if (mBuffer.get(lineStart+i) != s.charAt(i))
+				return false;
+		return true;
+		}
+
+	private boolean equals(int start, int end, byte[] bytes) {
+		if (end - start != bytes.length)
+			return false;
+		for (int i=0; i<bytes.length; i++)
+			if (mBuffer.get(start+i) != bytes[i])
+				return false;
+		return true;
+		}
+
+	/**
+	 * Converts a slice of the buffer into a String removing any '\r' characters.
+	 */
+	private String decode(int offset, int length) {
+		byte[] bytes = new byte[length];
+		int count = 0;
+		for (int i=0; i<length; i++) {
+			byte b = mBuffer.get(offset+i);
+			if (b != '\r')
+				bytes[count++] = b;
+			}
+		return new String(bytes, 0, count, StandardCharsets.UTF_8);
+		}
+
+	/**
+	 * Returns the molfile of the current record as one big String.
+	 * Line endings are '\n'.
+	 * @return
+	 */
+	public String getNextMolFile() {
+		String molfile = decode(mMolfileOffset, mMolfileLength);
+		return mMolfileHasEnd ? molfile : molfile.concat("M  END\n");
+		}
+
+	/**
+	 * @return the molecule of the current record (null in case of parsing error)
+	 */
+	@Override
+	public StereoMolecule getMolecule() {
+		if (mMol != null)
+			return mMol;
+
+		mMol = new MolfileParser().getCompactMolecule(getNextMolFile());
+		if (mMol != null && (mMol.getName() == null || mMol.getName().length() == 0))
+			mMol.setName(getMoleculeName());
+		return mMol;
+		}
+
+	@Override
+	public String getMoleculeName() {
+		return (mIDFieldIndex == -1) ? null : getFieldData(mIDFieldIndex);
+		}
+
+	@Override
+	public String getFieldData(int index) {
+		if (mFieldOffset == null || mFieldOffset[index] == -1)
+			return null;
+
+		return decode(mFieldOffset[index], mFieldLength[index]);
+		}
+
+	/**
+	 * Returns the list of field names. If no field names were passed to the constructor,
+	 * then the first 10240 records are inspected to collect all field names. Other than
+	 * with SDFileParser the parser is not used up by this and may be used to iterate
+	 * through all records afterwards.
+	 * @return array of field names
+	 */
+	@Override
+	public String[] getFieldNames() {
+		return getFieldNames(DEFAULT_RECORDS_TO_INSPECT);
+		}
+
+	/**
+	 * Returns the list of field names. If no field names were passed to the constructor,
+	 * then the first recordsToInspect records are inspected to collect all field names.
+	 * The current record stays the current record.
+	 * @return array of field names
+	 */
+	public String[] getFieldNames(int recordsToInspect) {
+		if (mFieldName == null && mBuffer != null) {
+			UniqueStringList fieldNameList = new UniqueStringList();
+			try {
+				long position = mFirstRecordPosition;
+				int records = 0;
+				while (records < recordsToInspect && position < mFileSize) {
+					ensureMapped(position);
+					int end = collectFieldNames((int)(position - mBufferStart), fieldNameList);
+					if (end == -1) {
+						if (isBufferAtEnd())
+							break;
+						remap(position);
+						continue;
+						}
+					position = mBufferStart + end;
+					records++;
+					}
+
+				setFieldNames(fieldNameList.toArray());
+				reparseCurrentRecord();
+				}
+			catch (IOException ioe) {
+				mBuffer = null;
+				}
+			}
+
+		return mFieldName;
+		}
+
+	/**
+	 * Adds the names of all fields of the record starting at index to fieldNameList.
+	 * @return index of the first byte after the record or -1, if the buffer ends within the record
+	 */
+	private int collectFieldNames(int index, UniqueStringList fieldNameList) {
+		int limit = mBuffer.limit();
+		boolean isLast = isBufferAtEnd();
+		int lineType = LINE_MOLFILE;
+		while (index < limit) {
+			int lineEnd = index;
+			while (lineEnd < limit && mBuffer.get(lineEnd) != '\n')
+				lineEnd++;
+			if (lineEnd == limit && !isLast)
+				return -1;
+
+			int contentEnd = (lineEnd > index && mBuffer.get(lineEnd-1) == '\r') ? lineEnd - 1 : lineEnd;
+			if (isRecordEnd(index, contentEnd))
+				return Math.min(lineEnd + 1, limit);
+
+			lineType = classifyLine(index, contentEnd, lineType);
+			if (lineType == LINE_FIELD_HEADER)
+				addFieldName(index, contentEnd, fieldNameList);
+
+			index = lineEnd + 1;
+			}
+
+		return -1;
+		}
+	}
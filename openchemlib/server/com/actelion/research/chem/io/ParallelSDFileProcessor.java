@@ -0,0 +1,313 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+package com.actelion.research.chem.io;
+
+import com.actelion.research.chem.Canonizer;
+import com.actelion.research.chem.MolfileParser;
+import com.actelion.research.chem.StereoMolecule;
+import com.actelion.research.chem.descriptor.DescriptorHandler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+
+/**
+ * ParallelSDFileProcessor reads all records of an SD-file and converts them into idcodes,
+ * encoded coordinates and optionally descriptors using all cores of the machine.
+ * The calling thread splits the file into records and submits blocks of records to a pool
+ * of worker threads, which parse the molfiles, canonicalize the molecules and calculate
+ * descriptors. Results are passed to a RecordListener on the calling thread strictly in
+ * file order. The number of blocks in progress is limited, such that memory consumption
+ * does not depend on the file size.<br>
+ * Note: This class is meant for server-side use and is not available in the JavaScript build.
+ */
+public class ParallelSDFileProcessor {
+	private static final int DEFAULT_BLOCK_SIZE = 64;
+
+	private ExecutorService mExecutor;
+	private int mThreadCount,mBlockSize;
+	@SuppressWarnings("rawtypes")
+	private DescriptorHandler[] mHandler;
+
+	public interface RecordListener {
+		/**
+		 * Is called on the thread that called process() once for every record in file order.
+		 * @param record
+		 */
+		void recordProcessed(Record record);
+		}
+
+	/**
+	 * Creates a processor, which uses as many worker threads as there are available processors.
+	 */
+	public ParallelSDFileProcessor() {
+		this(Runtime.getRuntime().availableProcessors());
+		}
+
+	/**
+	 * @param threadCount number of worker threads
+	 */
+	public ParallelSDFileProcessor(int threadCount) {
+		mThreadCount = Math.max(1, threadCount);
+		mExecutor = Executors.newFixedThreadPool(mThreadCount, new ThreadFactory() {
+			private ThreadFactory mDefaultFactory = Executors.defaultThreadFactory();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = mDefaultFactory.newThread(r);
+				thread.setDaemon(true);	// don't keep the JVM alive, if shutdown() is not called
+				return thread;
+				}
+			});
+		mBlockSize = DEFAULT_BLOCK_SIZE;
+		}
+
+	/**
+	 * Defines the number of records that are processed by one task. Every task creates its own
+	 * parser, canonizer and thread-safe descriptor handler copies. At most four blocks per
+	 * thread are kept in memory at any time.
+	 * @param blockSize
+	 */
+	public void setBlockSize(int blockSize) {
+		mBlockSize = Math.max(1, blockSize);
+		}
+
+	/**
+	 * Defines the descriptors to be calculated for every record. By default no descriptors are calculated.
+	 * @param handler descriptor handlers, which must handle StereoMolecules; null for none
+	 */
+	@SuppressWarnings("rawtypes")
+	public void setDescriptorHandlers(DescriptorHandler[] handler) {
+		mHandler = handler;
+		}
+
+	/**
+	 * Processes all remaining records of the parser. Records contain the values of the fields,
+	 * whose names were passed to the parser's constructor. If an SDFileParser was constructed
+	 * without field names, then the names of all fields are discovered while reading, such that
+	 * the parser is not used up in advance. In this case parser.getFieldNames() returns the
+	 * names of all fields after this method has returned.
+	 * @param parser SDFileParser or MappedSDFileParser
+	 * @param listener receives all records in file order
+	 * @return number of processed records
+	 */
+	public int process(CompoundFileParser parser, RecordListener listener) {
+		if (!(parser instanceof SDFileParser) && !(parser instanceof MappedSDFileParser))
+			throw new IllegalArgumentException("Parser must be an SD-file parser.");
+
+		if (parser instanceof SDFileParser && !((SDFileParser)parser).hasFieldNames())
+			((SDFileParser)parser).discoverFieldNames(null);
+
+		int maxPendingBlocks = 4 * mThreadCount;
+		ArrayDeque<Future<Record[]>> pendingBlocks = new ArrayDeque<Future<Record[]>>();
+		int recordCount = 0;
+
+		boolean hasMore = true;
+		while (hasMore) {
+			String[] molfile = new String[mBlockSize];
+			String[] name = new String[mBlockSize];
+			String[][] fieldData = new String[mBlockSize][];
+			int count = 0;
+			while (count < mBlockSize && (hasMore = parser.next())) {
+				molfile[count] = (parser instanceof SDFileParser) ?
+						((SDFileParser)parser).getNextMolFile() : ((MappedSDFileParser)parser).getNextMolFile();
+				String[] fieldName = parser.getFieldNames();	// may grow while reading, if names are discovered
+				int fieldCount = (fieldName == null) ? 0 : fieldName.length;
+				name[count] = parser.getMoleculeName();
+				fieldData[count] = new String[fieldCount];
+				for (int i=0; i<fieldCount; i++)
+					fieldData[count][i] = parser.getFieldData(i);
+				count++;
+				}
+
+			if (count != 0) {
+				if (pendingBlocks.size() == maxPendingBlocks)
+					deliver(pendingBlocks.poll(), listener);
+				pendingBlocks.add(mExecutor.submit(new RecordTask(recordCount, molfile, name, fieldData, count)));
+				recordCount += count;
+				}
+			}
+
+		while (!pendingBlocks.isEmpty())
+			deliver(pendingBlocks.poll(), listener);
+
+		return recordCount;
+		}
+
+	/**
+	 * Stops the worker threads. The processor cannot be used afterwards.
+	 * Worker threads are daemon threads, which don't prevent the JVM from exiting.
+	 */
+	public void shutdown() {
+		mExecutor.shutdown();
+		}
+
+	private void deliver(Future<Record[]> block, RecordListener listener) {
+		Record[] record;
+		try {
+			record = block.get();
+			}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ie);
+			}
+		catch (ExecutionException ee) {
+			throw new RuntimeException(ee.getCause());
+			}
+
+		for (Record r:record)
+			listener.recordProcessed(r);
+		}
+
+	private class RecordTask implements Callable<Record[]> {
+		private int mFirstIndex,mCount;
+		private String[] mMolfile,mName;
+		private String[][] mFieldData;
+
+		public RecordTask(int firstIndex, String[] molfile, String[] name, String[][] fieldData, int count) {
+			mFirstIndex = firstIndex;
+			mMolfile = molfile;
+			mName = name;
+			mFieldData = fieldData;
+			mCount = count;
+			}
+
+		@Override
+		@SuppressWarnings({"rawtypes","unchecked"})
+		public Record[] call() {
+			DescriptorHandler[] handler = null;
+			if (mHandler != null) {
+				handler = new DescriptorHandler[mHandler.length];
+				for (int i=0; i<handler.length; i++)
+					handler[i] = mHandler[i].getThreadSafeCopy();
+				}
+
+			MolfileParser parser = new MolfileParser();
+			Canonizer canonizer = null;
+			Record[] record = new Record[mCount];
+			for (int r=0; r<mCount; r++) {
+				Record rec = new Record();
+				rec.mIndex = mFirstIndex + r;
+				rec.mFieldData = mFieldData[r];
+				rec.mName = mName[r];
+
+				StereoMolecule mol = parser.getCompactMolecule(mMolfile[r]);
+				if (mol != null) {
+					if (mol.getName() != null && mol.getName().length() != 0)
+						rec.mName = mol.getName();
+
+					// same as CompoundFileParser.getIDCode() and getCoordinates()
+					try {
+						mol.normalizeAmbiguousBonds();
+						mol.canonizeCharge(true);
+						if (canonizer == null)
+							canonizer = new Canonizer(mol);
+						else
+							canonizer.reset(mol);
+						rec.mIDCode = canonizer.getIDCode();
+						rec.mCoordinates = canonizer.getEncodedCoordinates();
+						}
+					catch (Exception e) {
+						rec.mIDCode = null;
+						rec.mCoordinates = null;
+						}
+
+					// descriptors are calculated from the normalized molecule, which the idcode represents
+					if (handler != null) {
+						rec.mDescriptor = new Object[handler.length];
+						for (int i=0; i<handler.length; i++) {
+							Object d = handler[i].createDescriptor(mol);
+							rec.mDescriptor[i] = handler[i].calculationFailed(d) ? null : d;
+							}
+						}
+					}
+
+				mMolfile[r] = null;
+				record[r] = rec;
+				}
+
+			return record;
+			}
+		}
+
+	public static class Record {
+		private int mIndex;
+		private String mName,mIDCode,mCoordinates;
+		private String[] mFieldData;
+		private Object[] mDescriptor;
+
+		/**
+		 * @return zero based index of the record in the file
+		 */
+		public int getIndex() {
+			return mIndex;
+			}
+
+		/**
+		 * @return molfile name or, if empty, the value of the first compound identifier field
+		 */
+		public String getName() {
+			return mName;
+			}
+
+		/**
+		 * @return idcode or null, if the molfile could not be parsed or canonicalized
+		 */
+		public String getIDCode() {
+			return mIDCode;
+			}
+
+		/**
+		 * @return encoded coordinates or null, if the molfile could not be parsed or canonicalized
+		 */
+		public String getCoordinates() {
+			return mCoordinates;
+			}
+
+		/**
+		 * @param field index into the field names of the parser
+		 * @return field value with lines separated by '\n' or null
+		 */
+		public String getFieldData(int field) {
+			return (field < mFieldData.length) ? mFieldData[field] : null;
+			}
+
+		/**
+		 * @param handler index into the descriptor handlers
+		 * @return descriptor or null, if the molfile could not be parsed or the calculation failed
+		 */
+		public Object getDescriptor(int handler) {
+			return (mDescriptor == null) ? null : mDescriptor[handler];
+			}
+		}
+	}
@@ -0,0 +1,72 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+package com.actelion.research.calc;
+
+/**
+ * ThreadMaster, which asks a calculation to stop, once a given time has passed since its
+ * creation or its last restart(), or once cancel() was called. Passing a new instance to
+ * every call gives each call its own time budget.
+ */
+public class TimeLimitThreadMaster implements ThreadMaster {
+	private final long mTimeLimit;
+	private long mDeadline;
+	private volatile boolean mIsCancelled;
+
+	/**
+	 * @param timeLimit time in milliseconds after which threadMustDie() returns true
+	 */
+	public TimeLimitThreadMaster(long timeLimit) {
+		mTimeLimit = timeLimit;
+		restart();
+		}
+
+	/**
+	 * Starts a new time budget and revokes any previous cancel().
+	 */
+	public void restart() {
+		mDeadline = System.currentTimeMillis() + mTimeLimit;
+		mIsCancelled = false;
+		}
+
+	public void cancel() {
+		mIsCancelled = true;
+		}
+
+	@Override
+	public boolean threadMustDie() {
+		if (!mIsCancelled && System.currentTimeMillis() > mDeadline)
+			mIsCancelled = true;
+		return mIsCancelled;
+		}
+	}
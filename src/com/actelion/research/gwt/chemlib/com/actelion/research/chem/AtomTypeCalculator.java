@@ -377,4 +377,34 @@ public class AtomTypeCalculator {
 
 		return atomType;
 	}
+
+
+	/**
+	 * Derives the atom type of a less specific mode from an already calculated atom type
+	 * by removing flags, which describe the atom itself rather than its neighbours.
+	 * This allows to calculate atom types only once for multiple predictors, if their
+	 * modes only differ by these properties. If cPropertiesAtomSmallRing is removed, then
+	 * atomType must not have been calculated with cPropertiesAtomRingSize.
+	 * @param atomType atom type calculated by getAtomType()
+	 * @param properties any of cPropertiesAtomSmallRing, cPropertiesAtomAromatic, cPropertiesAtomAllylic, cPropertiesAtomStabilized, cPropertiesAtomCharged
+	 * @return atom type as getAtomType() would calculate it without the given properties
+	 */
+	public static long removeAtomProperties(long atomType, int properties) {
+		if ((properties & ~(cPropertiesAtomSmallRing | cPropertiesAtomAromatic | cPropertiesAtomAllylic
+						  | cPropertiesAtomStabilized | cPropertiesAtomCharged)) != 0)
+			throw new IllegalArgumentException("only atom flags can be removed");
+
+		if ((properties & cPropertiesAtomSmallRing) != 0)
+			atomType &= ~64L;
+		if ((properties & cPropertiesAtomAromatic) != 0)
+			atomType &= ~128L;
+		if ((properties & cPropertiesAtomAllylic) != 0)
+			atomType &= ~256L;
+		if ((properties & cPropertiesAtomStabilized) != 0)
+			atomType &= ~512L;
+		if ((properties & cPropertiesAtomCharged) != 0)
+			atomType &= ~0x000C000000000000L;
+
+		return atomType;
+		}
 }//end_of_class
\ No newline at end of file
@@ -40,6 +40,7 @@
 
 package com.actelion.research.chem;
 
+import com.actelion.research.calc.ThreadMaster;
 import com.actelion.research.chem.conf.TorsionDB;
 
 import java.util.ArrayList;
@@ -136,6 +137,7 @@ public class Canonizer {
 	private byte[] mEZESRGroup;
 	private byte[] mAbnormalValence;
 	private CanonizerBaseValue[] mCanBase;
+	private int[] mCanAtomOrder,mCanAtomOrderBuffer,mConnRank;
 	private CanonizerMesoHelper mMesoHelper;
 	private boolean mIsMeso,mStereoCentersFound;
 	private boolean[] mIsStereoCenter;  // based on extended stereo ranking, i.e. considering ESR type and group
@@ -154,6 +156,8 @@ public class Canonizer {
 	private boolean mIsOddParityRound;
 	private boolean mZCoordinatesAvailable;
 	private boolean mCIPParityNoDistinctionProblem;
+	private ThreadMaster mThreadMaster;
+	private boolean mIsCIPCancelled;
 
 	private boolean mGraphGenerated;
 	private int mGraphRings;
@@ -164,7 +168,8 @@ public class Canonizer {
 	private int[] mGraphClosure;
 
 	private String		  mIDCode,mCoordinates,mMapping;
-	private StringBuilder	mEncodingBuffer;
+	private StringBuilder	mEncodingBuffer,mIDCodeBuffer;
+	private boolean			mIDCodeCreated;
 	private	int				mEncodingBitsAvail,mEncodingTempData,mMaxConnAtoms;
 
 	/**
@@ -189,6 +194,51 @@ public class Canonizer {
 	 * @param mode 0 or one or more of CONSIDER...TOPICITY, CREATE..., ENCODE_ATOM_CUSTOM_LABELS, ASSIGN_PARITIES_TO_TETRAHEDRAL_N, COORDS_ARE_3D
 	 */
 	public Canonizer(StereoMolecule mol, int mode) {
+		canonize(mol, mode);
+		}
+
+	/**
+	 * Runs a canonicalization process like Canonizer(mol, mode), but asks threadMaster during
+	 * the assignment of Cahn-Ingold-Prelog parities, whether to stop. CIP parities are needed
+	 * for display only and don't influence the canonical ranking, the idcode or the encoded
+	 * coordinates. Thus, if the CIP assignment is stopped, then all other results are still
+	 * complete, while CIP parities, which could not be determined anymore, are flagged as
+	 * assignment problems and isCIPCancelled() returns true.
+	 * The threadMaster is also used by subsequent reset() calls.
+	 * @param mol
+	 * @param mode 0 or one or more of CONSIDER...TOPICITY, CREATE..., ENCODE_ATOM_CUSTOM_LABELS, ASSIGN_PARITIES_TO_TETRAHEDRAL_N, COORDS_ARE_3D
+	 * @param threadMaster null or ThreadMaster, which may stop the CIP parity assignment
+	 */
+	public Canonizer(StereoMolecule mol, int mode, ThreadMaster threadMaster) {
+		mThreadMaster = threadMaster;
+		canonize(mol, mode);
+		}
+
+	/**
+	 * Runs a new canonicalization process on another molecule using the same mode as before.
+	 * All results of the previous molecule are discarded, while internal working buffers are
+	 * reused and only grown if the new molecule needs larger ones. Thus, when canonizing many
+	 * molecules, e.g. fragments during descriptor calculation, one Canonizer may be reset
+	 * repeatedly instead of constructing a new one for every molecule.
+	 * Arrays obtained from a previous getFinalRank(), getGraphAtoms() or getGraphIndexes()
+	 * are not touched by this method.
+	 * @param mol
+	 */
+	public void reset(StereoMolecule mol) {
+		canonize(mol, mMode);
+		}
+
+	/**
+	 * Runs a new canonicalization process on another molecule reusing internal working buffers.
+	 * @param mol
+	 * @param mode 0 or one or more of CONSIDER...TOPICITY, CREATE..., ENCODE_ATOM_CUSTOM_LABELS, ASSIGN_PARITIES_TO_TETRAHEDRAL_N, COORDS_ARE_3D
+	 * @see #reset(StereoMolecule)
+	 */
+	public void reset(StereoMolecule mol, int mode) {
+		canonize(mol, mode);
+		}
+
+	private void canonize(StereoMolecule mol, int mode) {
 		if (mol.getAllAtoms()>MAX_ATOMS)
 			throw new IllegalArgumentException("Cannot canonize a molecule having more than "+MAX_ATOMS+" atoms");
 		if (mol.getAllBonds()>MAX_BONDS)
@@ -197,6 +247,26 @@ public class Canonizer {
 		mMol = mol;
 		mMode = mode;
 
+		mIDCode = null;
+		mCoordinates = null;
+		mMapping = null;
+		mIDCodeCreated = false;
+		mGraphGenerated = false;
+		mGraphAtom = null;
+		mGraphIndex = null;
+		mTHConfiguration = null;
+		mEZConfiguration = null;
+		mAbnormalValence = null;
+		mCanRankBeforeTieBreaking = null;
+		mPseudoTHGroup = null;
+		mPseudoEZGroup = null;
+		mNoOfPseudoGroups = 0;
+		mTHCIPParity = null;
+		mEZCIPParity = null;
+		mMesoHelper = null;
+		mIsMeso = false;
+		mFragmentList = null;
+
 		mMol.ensureHelperArrays(Molecule.cHelperRings);
 		canFindNitrogenQualifyingForParity();
 
@@ -211,14 +281,29 @@ public class Canonizer {
 				}
 			}
 
-		mTHParity = new byte[mMol.getAtoms()];
-		mTHParityIsPseudo = new boolean[mMol.getAtoms()];
-		mTHParityRoundIsOdd = new boolean[mMol.getAtoms()];
-		mEZParity = new byte[mMol.getBonds()];
-		mEZParityRoundIsOdd = new boolean[mMol.getBonds()];
-		mEZParityIsPseudo = new boolean[mMol.getBonds()];
+		if (mTHParity == null || mTHParity.length < mMol.getAtoms()) {
+			mTHParity = new byte[mMol.getAtoms()];
+			mTHParityIsPseudo = new boolean[mMol.getAtoms()];
+			mTHParityRoundIsOdd = new boolean[mMol.getAtoms()];
+			}
+		else {
+			Arrays.fill(mTHParity, (byte)0);
+			Arrays.fill(mTHParityIsPseudo, false);
+			Arrays.fill(mTHParityRoundIsOdd, false);
+			}
+		if (mEZParity == null || mEZParity.length < mMol.getBonds()) {
+			mEZParity = new byte[mMol.getBonds()];
+			mEZParityRoundIsOdd = new boolean[mMol.getBonds()];
+			mEZParityIsPseudo = new boolean[mMol.getBonds()];
+			}
+		else {
+			Arrays.fill(mEZParity, (byte)0);
+			Arrays.fill(mEZParityRoundIsOdd, false);
+			Arrays.fill(mEZParityIsPseudo, false);
+			}
 
 		mCIPParityNoDistinctionProblem = false;
+		mIsCIPCancelled = false;
 
 		canInitializeRanking();
 		canRankStereo();
@@ -231,6 +316,13 @@ public class Canonizer {
 		return mCIPParityNoDistinctionProblem;
 		}
 
+	/**
+	 * @return whether the ThreadMaster stopped the CIP parity assignment before it was complete
+	 */
+	public boolean isCIPCancelled() {
+		return mIsCIPCancelled;
+		}
+
 	/**
 	 * Locate those tetrahedral nitrogen atoms with at least 3 neighbors that
 	 * qualify for tetrahedral parity calculation because:<br>
@@ -239,7 +331,10 @@ public class Canonizer {
 	 * or - flag ASSIGN_PARITIES_TO_TETRAHEDRAL_N is set
 	 */
 	private void canFindNitrogenQualifyingForParity() {
-		mNitrogenQualifiesForParity = new boolean[mMol.getAtoms()];
+		if (mNitrogenQualifiesForParity == null || mNitrogenQualifiesForParity.length < mMol.getAtoms())
+			mNitrogenQualifiesForParity = new boolean[mMol.getAtoms()];
+		else
+			Arrays.fill(mNitrogenQualifiesForParity, false);
 		for (int atom=0; atom<mMol.getAtoms(); atom++) {
 			if (mMol.getAtomicNo(atom) == 7) {
 				if (mMol.getConnAtoms(atom) == 4) {
@@ -673,9 +768,19 @@ System.out.println("mEZParity["+bond+"] = "+mEZParity[bond]);
 			  : (62 + ATOM_BITS + mMaxConnAtoms * (ATOM_BITS+5)) / 63);
 
 		mCanRank = new int[mMol.getAllAtoms()];
-		mCanBase = new CanonizerBaseValue[mMol.getAtoms()];
-		for (int atom=0; atom<mMol.getAtoms(); atom++)
-			mCanBase[atom] = new CanonizerBaseValue(baseValueSize);
+
+		// base values and sort buffers are kept for subsequent reset() calls
+		if (mCanBase == null
+		 || mCanBase.length < mMol.getAtoms()
+		 || (mCanBase.length != 0 && mCanBase[0].mValue.length < baseValueSize)) {
+			mCanBase = new CanonizerBaseValue[mMol.getAtoms()];
+			for (int atom=0; atom<mMol.getAtoms(); atom++)
+				mCanBase[atom] = new CanonizerBaseValue(baseValueSize);
+			mCanAtomOrder = new int[mMol.getAtoms()];
+			mCanAtomOrderBuffer = new int[mMol.getAtoms()];
+			}
+		if (mConnRank == null || mConnRank.length < mMaxConnAtoms)
+			mConnRank = new int[mMaxConnAtoms];
 
 		boolean atomListFound = false;
 
@@ -876,7 +981,7 @@ System.out.println("mEZParity["+bond+"] = "+mEZParity[bond]);
 
 			// in a loop check for stereo features that depend on the configuration
 			// of other stereo features already found and rank atoms again
-		while ((mNoOfRanks < mMol.getAtoms()) && paritiesFound) {
+		while ((mNoOfRanks < mMol.getAtoms()) && paritiesFound && !mIsCIPCancelled) {
 			for (int atom=0; atom<mMol.getAtoms(); atom++) {
 				mCanBase[atom].init(atom);
 				mCanBase[atom].add(ATOM_BITS+4, (mCanRank[atom] << 4)
@@ -1509,7 +1614,7 @@ System.out.println("mCanBaseValue["+atom+"] = "+Long.toHexString(mCanBase[atom].
 		do {
 			oldNoOfRanks = newNoOfRanks;
 			canCalcNextBaseValues();
-			newNoOfRanks = canConsolidate();
+			newNoOfRanks = canRefine();
 			} while (oldNoOfRanks != newNoOfRanks);
 
 		return newNoOfRanks;
@@ -1517,7 +1622,7 @@ System.out.println("mCanBaseValue["+atom+"] = "+Long.toHexString(mCanBase[atom].
 
 
 	private void canCalcNextBaseValues() {
-		int	connRank[] = new int[mMaxConnAtoms];
+		int	connRank[] = mConnRank;
 		for (int atom=0; atom<mMol.getAtoms(); atom++) {
 								// generate sorted list of ranks of neighbours
 			int neighbours = mMol.getConnAtoms(atom)+mMol.getMetalBondedConnAtoms(atom);
@@ -1550,13 +1655,21 @@ System.out.println("mCanBaseValue["+atom+"] = "+Long.toHexString(mCanBase[atom].
 		}
 
 
+	/**
+	 * Sorts all atoms by their base values and assigns new ranks such that atoms
+	 * with equal base values get equal ranks. mCanAtomOrder keeps the atoms in
+	 * the order of their new ranks, which is used by canRefine().
+	 * @return number of distinct ranks
+	 */
 	private int canConsolidate() {
 		int canRank = 0;
-		Arrays.sort(mCanBase);
-		for (int i=0; i<mCanBase.length; i++) {
-			if (i == 0 || mCanBase[i].compareTo(mCanBase[i-1]) != 0)
+		for (int i=0; i<mMol.getAtoms(); i++)
+			mCanAtomOrder[i] = i;
+		canSortAtoms(0, mMol.getAtoms());
+		for (int i=0; i<mMol.getAtoms(); i++) {
+			if (i == 0 || mCanBase[mCanAtomOrder[i]].compareTo(mCanBase[mCanAtomOrder[i-1]]) != 0)
 				canRank++;
-			mCanRank[mCanBase[i].getAtom()] = canRank;
+			mCanRank[mCanAtomOrder[i]] = canRank;
 			}
 /*
 System.out.print("Ranks:");
@@ -1568,6 +1681,77 @@ System.out.println("noOfRanks:"+canRank);
 		}
 
 
+	/**
+	 * Same as canConsolidate(), but requires base values as created by canCalcNextBaseValues()
+	 * and mCanAtomOrder to reflect the current ranks. Because the current rank is the most
+	 * significant part of these base values, only atoms sharing a rank need to be sorted
+	 * among each other, while atoms with a unique rank keep their position.
+	 * @return number of distinct ranks
+	 */
+	private int canRefine() {
+		int canRank = 0;
+		int start = 0;
+		while (start < mMol.getAtoms()) {
+			int rank = mCanRank[mCanAtomOrder[start]];
+			int end = start + 1;
+			while (end < mMol.getAtoms() && mCanRank[mCanAtomOrder[end]] == rank)
+				end++;
+
+			if (end - start == 1) {
+				mCanRank[mCanAtomOrder[start]] = ++canRank;
+				}
+			else {
+				canSortAtoms(start, end);
+				for (int i=start; i<end; i++) {
+					if (i == start || mCanBase[mCanAtomOrder[i]].compareTo(mCanBase[mCanAtomOrder[i-1]]) != 0)
+						canRank++;
+					mCanRank[mCanAtomOrder[i]] = canRank;
+					}
+				}
+
+			start = end;
+			}
+
+		return canRank;
+		}
+
+
+	/**
+	 * Sorts the atoms of mCanAtomOrder from index 'from' to 'to'-1 by their base values.
+	 * This is a merge sort, which reuses mCanAtomOrderBuffer to avoid any allocation.
+	 */
+	private void canSortAtoms(int from, int to) {
+		if (to - from <= 8) {
+			for (int i=from+1; i<to; i++) {
+				int atom = mCanAtomOrder[i];
+				int j = i;
+				while (j > from && mCanBase[mCanAtomOrder[j-1]].compareTo(mCanBase[atom]) > 0) {
+					mCanAtomOrder[j] = mCanAtomOrder[j-1];
+					j--;
+					}
+				mCanAtomOrder[j] = atom;
+				}
+			return;
+			}
+
+		int middle = (from + to) >>> 1;
+		canSortAtoms(from, middle);
+		canSortAtoms(middle, to);
+		if (mCanBase[mCanAtomOrder[middle-1]].compareTo(mCanBase[mCanAtomOrder[middle]]) <= 0)
+			return;
+
+		System.arraycopy(mCanAtomOrder, from, mCanAtomOrderBuffer, from, to - from);
+		int i1 = from;
+		int i2 = middle;
+		for (int i=from; i<to; i++) {
+			if (i2 == to || (i1 < middle && mCanBase[mCanAtomOrderBuffer[i1]].compareTo(mCanBase[mCanAtomOrderBuffer[i2]]) <= 0))
+				mCanAtomOrder[i] = mCanAtomOrderBuffer[i1++];
+			else
+				mCanAtomOrder[i] = mCanAtomOrderBuffer[i2++];
+			}
+		}
+
+
 	/**
 	 * Calculate tetrahedral parity of a stereo center based on neighbours ranks and
 	 * 3D-orientation. Axial (allene type) are also calculated.
@@ -2533,14 +2717,48 @@ System.out.println("noOfRanks:"+canRank);
 
 	public String getIDCode() {
 		if (mIDCode == null) {
+			ensureIDCode();
+			mIDCode = mIDCodeBuffer.toString();
+			}
+
+		return mIDCode;
+		}
+
+
+	/**
+	 * Writes the idcode as ASCII bytes into the given buffer without creating a String,
+	 * which allows to pass it directly to IDCodeParser.parse(StereoMolecule, byte[]) or to
+	 * any byte oriented storage. If the buffer cannot hold the complete idcode from
+	 * offset on, then nothing is written and the caller may retry with a larger buffer.
+	 * @param buffer
+	 * @param offset position in buffer for the first idcode byte
+	 * @return idcode length in bytes
+	 */
+	public int getIDCode(byte[] buffer, int offset) {
+		ensureIDCode();
+		int length = mIDCodeBuffer.length();
+		if (offset + length <= buffer.length)
+			for (int i=0; i<length; i++)
+				buffer[offset+i] = (byte)mIDCodeBuffer.charAt(i);
+
+		return length;
+		}
+
+
+	private void ensureIDCode() {
+		if (!mIDCodeCreated) {
 			generateGraph();
 			idGenerateConfigurations();
 //			idNormalizeConfigurations();
 			idNormalizeESRGroupNumbers();
 			idCodeCreate();
-			}
 
-		return mIDCode;
+			// keep idcode characters, while coordinates and mapping use the other buffer
+			StringBuilder buffer = mIDCodeBuffer;
+			mIDCodeBuffer = mEncodingBuffer;
+			mEncodingBuffer = buffer;
+			mIDCodeCreated = true;
+			}
 		}
 
 
@@ -2575,7 +2793,7 @@ System.out.println("noOfRanks:"+canRank);
 		if (nbits == 0) {
 			encodeBits(mMol.isFragment() ? 1 : 0, 1);	// query fragment ?
 			encodeBits(0, 1);
-			mIDCode = encodeBitsEnd();
+			encodeBitsFlush();
 			return;
 			}
 
@@ -3035,7 +3253,7 @@ System.out.println();
 			}
 
 		encodeBits(0, 1);
-		mIDCode = encodeBitsEnd();
+		encodeBitsFlush();
 		}
 
 
@@ -3714,7 +3932,10 @@ System.out.println();
 
 
 	private void encodeBitsStart() {
-		mEncodingBuffer = new StringBuilder();
+		if (mEncodingBuffer == null)
+			mEncodingBuffer = new StringBuilder();
+		else
+			mEncodingBuffer.setLength(0);
 		mEncodingBitsAvail = 6;
 		mEncodingTempData = 0;
 		}
@@ -3738,9 +3959,14 @@ System.out.println();
 
 
 	private String encodeBitsEnd() {
+		encodeBitsFlush();
+		return mEncodingBuffer.toString();
+		}
+
+
+	private void encodeBitsFlush() {
 		mEncodingTempData <<= mEncodingBitsAvail;
 		mEncodingBuffer.append((char)(mEncodingTempData + 64));
-		return mEncodingBuffer.toString();
 		}
 
 
@@ -4059,6 +4285,12 @@ System.out.println();
 		levelStart[2] = 3;
 		int currentLevel = 2;
 		while (current <= highest) {
+			if (mIsCIPCancelled
+			 || (mThreadMaster != null && mThreadMaster.threadMustDie())) {
+				mIsCIPCancelled = true;
+				throw new Exception("CIP parity assignment cancelled");
+				}
+
 			while (current < levelStart[currentLevel]) {
 				int currentAtom = graphAtom[current];
 
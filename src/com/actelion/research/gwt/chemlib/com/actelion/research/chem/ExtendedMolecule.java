@@ -73,9 +73,10 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	transient private int mPi[];
 	transient private int mConnAtoms[];	// non-H neighbour counts
 	transient private int mAllConnAtoms[];	// neighbour counts including explicit hydrogen
-	transient private int mConnAtom[][];
-	transient private int mConnBond[][];
-	transient private int mConnBondOrder[][];
+	transient private int mConnOffset[];	// start of an atom's neighbours in the following arrays
+	transient private int mConnAtom[];
+	transient private int mConnBond[];
+	transient private int mConnBondOrder[];
 
 	public ExtendedMolecule() {
 		}
@@ -178,7 +179,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		for (int atom=0; atom<mAllAtoms;atom++) {
 			atomMap[atom] = -1;
 			for (int i = 0; i< mConnAtoms[atom]; i++) {
-				if (includeBond[mConnBond[atom][i]]) {
+				if (includeBond[mConnBond[mConnOffset[atom]+i]]) {
 					atomMap[atom] = copyAtom(destMol, atom, 0, 0);
 					break;
 					}
@@ -267,7 +268,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 * @return count of neighbour atoms connected by a 0-order metal ligand bond
 	 */
 	public int getMetalBondedConnAtoms(int atom) {
-		return mConnAtom[atom].length - mAllConnAtoms[atom];
+		return mConnOffset[atom+1] - mConnOffset[atom] - mAllConnAtoms[atom];
 		}
 
 
@@ -288,7 +289,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	public int getAtomSigma(int atom) {
 		int sigma = 0;
 		for (int i=0; i<mConnAtoms[atom]; i++)
-			if (mAtomicNo[mConnAtom[atom][i]] == 6)
+			if (mAtomicNo[mConnAtom[mConnOffset[atom]+i]] == 6)
 				sigma++;
 		return sigma;
 		}*/
@@ -301,8 +302,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	public int getAtomZValue(int atom) {
 		int z = 0;
 		for (int i=0; i<mConnAtoms[atom]; i++)
-			if (isElectronegative(mConnAtom[atom][i]))
-				z += mConnBondOrder[atom][i];
+			if (isElectronegative(mConnAtom[mConnOffset[atom]+i]))
+				z += mConnBondOrder[mConnOffset[atom]+i];
 		return z;
 		}*/
 
@@ -343,8 +344,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 */
 	public int getBond(int atom1, int atom2) {
 		for (int i=0; i<getAllConnAtomsPlusMetalBonds(atom1); i++)
-			if (mConnAtom[atom1][i] == atom2)
-				return mConnBond[atom1][i];
+			if (mConnAtom[mConnOffset[atom1]+i] == atom2)
+				return mConnBond[mConnOffset[atom1]+i];
 		return -1;
 		}
 
@@ -370,7 +371,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 * @return the i-th neighbor atom of atom
 	 */
 	public int getConnAtom(int atom, int i) {
-		return mConnAtom[atom][i];
+		return mConnAtom[mConnOffset[atom]+i];
 		}
 
 
@@ -398,7 +399,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 * @return count of category 1 & 2 & 3 neighbour atoms (excludes neighbours connected with zero bond order)
 	 */
 	public int getAllConnAtomsPlusMetalBonds(int atom) {
-		return mConnAtom[atom].length;
+		return mConnOffset[atom+1] - mConnOffset[atom];
 		}
 
 
@@ -413,7 +414,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 * @return index of bond connecting atom with its i-th neighbor
 	 */
 	public int getConnBond(int atom, int i) {
-		return mConnBond[atom][i];
+		return mConnBond[mConnOffset[atom]+i];
 		}
 
 
@@ -428,7 +429,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 * @return order of bond connecting atom with its i-th neighbor
 	 */
 	public int getConnBondOrder(int atom, int i) {
-		return mConnBondOrder[atom][i];
+		return mConnBondOrder[mConnOffset[atom]+i];
 		}
 
 
@@ -444,7 +445,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	public int getNonHydrogenNeighbourCount(int atom) {
 		int count = mConnAtoms[atom];
 		for (int i = 0; i< mConnAtoms[atom]; i++)
-			if (mAtomicNo[mConnAtom[atom][i]] == 1)
+			if (mAtomicNo[mConnAtom[mConnOffset[atom]+i]] == 1)
 				count--;
 		return count;
 		}
@@ -479,7 +480,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int connAtoms = mAllConnAtoms[atom];
 		int[] indexMap = new int[connAtoms];
 		for (int i=0; i<connAtoms; i++)
-			indexMap[i] = (mConnAtom[atom][i] << 16) + i;
+			indexMap[i] = (mConnAtom[mConnOffset[atom]+i] << 16) + i;
 		java.util.Arrays.sort(indexMap);
 		for (int i=0; i<connAtoms; i++)
 			indexMap[i] &= 0x0000FFFF;
@@ -498,7 +499,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int valence = 0;
 		for (int i=0; i<mAllConnAtoms[atom]; i++)
-			valence += mConnBondOrder[atom][i];
+			valence += mConnBondOrder[mConnOffset[atom]+i];
 
 		return valence;
 		}
@@ -514,8 +515,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int valence = 0;
 		for (int i=0; i<mAllConnAtoms[atom]; i++)
-			if (mIsFragment && (mAtomQueryFeatures[mConnAtom[atom][i]] & cAtomQFExcludeGroup) != 0)
-				valence += mConnBondOrder[atom][i];
+			if (mIsFragment && (mAtomQueryFeatures[mConnAtom[mConnOffset[atom]+i]] & cAtomQFExcludeGroup) != 0)
+				valence += mConnBondOrder[mConnOffset[atom]+i];
 
 		return valence;
 	}
@@ -651,7 +652,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			int highest = 0;
 			while (current <= highest) {
 				for (int i = 0; i< mConnAtoms[graphAtom[current]]; i++) {
-					int candidate = mConnAtom[graphAtom[current]][i];
+					int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 					if (graphLevel[candidate] == 0) {
 						graphLevel[candidate] = graphLevel[graphAtom[current]] + 1;
 						graphAtom[++highest] = candidate;
@@ -687,7 +688,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int highest = 0;
 		while (current <= highest) {
 			for (int i=0; i<mAllConnAtoms[graphAtom[current]]; i++) {
-				int candidate = mConnAtom[graphAtom[current]][i];
+				int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 				if (candidate == atom2)
 					return graphLevel[graphAtom[current]];
 				if (graphLevel[candidate] == 0) {
@@ -725,7 +726,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int highest = 0;
 		while (current <= highest && graphLevel[graphAtom[current]] <= maxLength) {
 			for (int i=0; i<mAllConnAtoms[graphAtom[current]]; i++) {
-				int candidate = mConnAtom[graphAtom[current]][i];
+				int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 				if (candidate == atom2)
 					return graphLevel[graphAtom[current]];
 
@@ -771,9 +772,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			int parent = graphAtom[current];
 			for (int i=0; i<mAllConnAtoms[parent]; i++) {
 				if (neglectBond == null
-				 || neglectBond.length <= mConnBond[parent][i]
-				 || !neglectBond[mConnBond[parent][i]]) {
-					int candidate = mConnAtom[parent][i];
+				 || neglectBond.length <= mConnBond[mConnOffset[parent]+i]
+				 || !neglectBond[mConnBond[mConnOffset[parent]+i]]) {
+					int candidate = mConnAtom[mConnOffset[parent]+i];
 					if (candidate == atom2) {
 						int index = graphLevel[parent];
 						pathAtom[index] = candidate;
@@ -808,8 +809,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		ensureHelperArrays(cHelperNeighbours);
 		for (int i=0; i<pathLength; i++) {
 			for (int j=0; j<mAllConnAtoms[pathAtom[i]]; j++) {
-				if (mConnAtom[pathAtom[i]][j] == pathAtom[i+1]) {
-					pathBond[i] = mConnBond[pathAtom[i]][j];
+				if (mConnAtom[mConnOffset[pathAtom[i]]+j] == pathAtom[i+1]) {
+					pathBond[i] = mConnBond[mConnOffset[pathAtom[i]]+j];
 					break;
 					}
 				}
@@ -854,7 +855,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int highest = 0;
 	 	while (current <= highest) {
 			for (int i=0; i<sourceMol.getAllConnAtoms(graphAtom[current]); i++) {
-				int candidate = sourceMol.mConnAtom[graphAtom[current]][i];
+				int candidate = sourceMol.mConnAtom[sourceMol.mConnOffset[graphAtom[current]]+i];
 				if (!isFragmentMember[candidate]) {
 					graphAtom[++highest] = candidate;
 					isFragmentMember[candidate] = true;
@@ -908,7 +909,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			int connAtoms = considerMetalBonds ? getAllConnAtomsPlusMetalBonds(graphAtom[current])
 											   : mAllConnAtoms[graphAtom[current]];
 			for (int i=0; i<connAtoms; i++) {
-				int candidate = mConnAtom[graphAtom[current]][i];
+				int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 				if (!isFragmentMember[candidate]) {
 					graphAtom[++highest] = candidate;
 					isFragmentMember[candidate] = true;
@@ -956,9 +957,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 					int connAtoms = considerMetalBonds ? getAllConnAtomsPlusMetalBonds(graphAtom[current])
 													   : mAllConnAtoms[graphAtom[current]];
 					for (int i=0; i<connAtoms; i++) {
-						int candidate = mConnAtom[graphAtom[current]][i];
+						int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 						if (fragmentNo[candidate] == -1
-						 && !neglectBond[mConnBond[graphAtom[current]][i]]) {
+						 && !neglectBond[mConnBond[mConnOffset[graphAtom[current]]+i]]) {
 							graphAtom[++highest] = candidate;
 							fragmentNo[candidate] = fragments;
 							}
@@ -1004,7 +1005,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 					int connAtoms = considerMetalBonds ? getAllConnAtomsPlusMetalBonds(graphAtom[current])
 													   : mAllConnAtoms[graphAtom[current]];
 					for (int i=0; i<connAtoms; i++) {
-						int candidate = mConnAtom[graphAtom[current]][i];
+						int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 						if (fragmentNo[candidate] == -1
 						 && (!markedAtomsOnly || isMarkedAtom(candidate))) {
 							graphAtom[++highest] = candidate;
@@ -1102,12 +1103,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int highest = 0;
 	 	while (current <= highest) {
 			for (int i = 0; i< mConnAtoms[graphAtom[current]]; i++) {
-				int candidateBond = mConnBond[graphAtom[current]][i];
+				int candidateBond = mConnBond[mConnOffset[graphAtom[current]]+i];
 				if (!isMemberBond[candidateBond]
 				 && isRingBond(candidateBond)
 				 && (!aromaticOnly || isAromaticBond(candidateBond))) {
 					isMemberBond[candidateBond] = true;
-					int candidateAtom = mConnAtom[graphAtom[current]][i];
+					int candidateAtom = mConnAtom[mConnOffset[graphAtom[current]]+i];
 					if (!isMemberAtom[candidateAtom]) {
 						isMemberAtom[candidateAtom] = true;
 						graphAtom[++highest] = candidateAtom;
@@ -1158,7 +1159,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 	while (current <= highest) {
 			int connAtoms = getAllConnAtomsPlusMetalBonds(graphAtom[current]);
 			for (int i=0; i<connAtoms; i++) {
-				int candidate = mConnAtom[graphAtom[current]][i];
+				int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 				if (candidate == coreAtom) {
 					if (current != 1)
 						return -1;
@@ -1202,7 +1203,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int highest = 1;
 		while (current <= highest) {
 			for (int i = 0; i< mConnAtoms[graphAtom[current]]; i++) {
-				int candidate = mConnAtom[graphAtom[current]][i];
+				int candidate = mConnAtom[mConnOffset[graphAtom[current]]+i];
 				if (candidate == coreAtom) {
 					if (current != 1)
 						return -1;
@@ -1259,12 +1260,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int occupiedValence = 0;
 		for (int i=0; i<mAllConnAtoms[atom]; i++)
-			occupiedValence += mConnBondOrder[atom][i];
+			occupiedValence += mConnBondOrder[mConnOffset[atom]+i];
 
 		if (mIsFragment) {
 			int delocalizedBonds = 1;
 			for (int i = 0; i< mConnAtoms[atom]; i++)
-				if (mBondType[mConnBond[atom][i]] == cBondTypeDelocalized)
+				if (mBondType[mConnBond[mConnOffset[atom]+i]] == cBondTypeDelocalized)
 					delocalizedBonds++;
 			occupiedValence += delocalizedBonds >> 1;
 			}
@@ -1345,8 +1346,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 					if (mAtomicNo[atom1] == 7 && !isAromaticAtom(atom1)) {
 						int atom2 = mBondAtom[1 - i][bond];
 						for (int j = 0; j < mConnAtoms[atom2]; j++) {
-							int connAtom = mConnAtom[atom2][j];
-							int connBond = mConnBond[atom2][j];
+							int connAtom = mConnAtom[mConnOffset[atom2]+j];
+							int connBond = mConnBond[mConnOffset[atom2]+j];
 							if (connBond != bond
 									&& getBondOrder(connBond) > 1
 									&& !isAromaticAtom(connAtom)
@@ -1387,12 +1388,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 				&& mConnAtoms[atom] == 2
 				&& mAtomicNo[atom] < 10) {
 				for (int j=0; j<2; j++) {
-					int connAtom = mConnAtom[atom][j];
+					int connAtom = mConnAtom[mConnOffset[atom]+j];
 					if (connAtom != rearAtom) {
 						if (mConnAtoms[connAtom] == 1)
 							return true;
 
-						int connBond = mConnBond[atom][j];
+						int connBond = mConnBond[mConnOffset[atom]+j];
 						if (getBondOrder(connBond) == 1
 						 && connBond < bond)
 							return true;
@@ -1437,14 +1438,14 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int[] ringAtom = new int[mAtoms];
 		int count = 0;
 		for (int i = 1; i< mConnAtoms[atom]; i++) {
-			int bond1 = mConnBond[atom][i];
+			int bond1 = mConnBond[mConnOffset[atom]+i];
 			if (isRingBond(bond1)) {
 				for (int j=0; j<i; j++) {
-					int bond2 = mConnBond[atom][j];
+					int bond2 = mConnBond[mConnOffset[atom]+j];
 					if (isRingBond(bond2)) {
 						neglectBond[bond1] = true;
 						neglectBond[bond2] = true;
-						int pathLength = getPath(ringAtom, mConnAtom[atom][i], mConnAtom[atom][j], maxRingSize-2, neglectBond);
+						int pathLength = getPath(ringAtom, mConnAtom[mConnOffset[atom]+i], mConnAtom[mConnOffset[atom]+j], maxRingSize-2, neglectBond);
 						neglectBond[bond1] = false;
 						neglectBond[bond2] = false;
 						if (pathLength != -1) {
@@ -1606,18 +1607,26 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 */
 	public int getStereoBond(int atom) {
 		ensureHelperArrays(cHelperNeighbours);
+		int offset = mConnOffset[atom];
 		if (mConnAtoms[atom] == 2
-		 && mConnBondOrder[atom][0] == 2
-		 && mConnBondOrder[atom][1] == 2) {
-			for (int i=0; i<2; i++)
-				for (int j=0; j<mAllConnAtoms[mConnAtom[atom][i]]; j++)
-					if (isStereoBond(mConnBond[mConnAtom[atom][i]][j], mConnAtom[atom][i]))
-						return mConnBond[mConnAtom[atom][i]][j];
+		 && mConnBondOrder[offset] == 2
+		 && mConnBondOrder[offset+1] == 2) {
+			for (int i=0; i<2; i++) {
+				int alleneAtom = mConnAtom[offset+i];
+				int alleneOffset = mConnOffset[alleneAtom];
+				for (int j=0; j<mAllConnAtoms[alleneAtom]; j++) {
+					int connBond = mConnBond[alleneOffset+j];
+					if (isStereoBond(connBond, alleneAtom))
+						return connBond;
+					}
+				}
 			}
 		else {
-			for (int i=0; i<mAllConnAtoms[atom]; i++)
-				if (isStereoBond(mConnBond[atom][i], atom))
-					return mConnBond[atom][i];
+			for (int i=0; i<mAllConnAtoms[atom]; i++) {
+				int connBond = mConnBond[offset+i];
+				if (isStereoBond(connBond, atom))
+					return connBond;
+				}
 			}
 
 		return -1;
@@ -1671,7 +1680,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 */
 	public void convertStereoBondsToSingleBonds(int atom) {
 		for (int i=0; i<mAllConnAtoms[atom]; i++) {
-			int connBond = mConnBond[atom][i];
+			int connBond = mConnBond[mConnOffset[atom]+i];
 			if (isStereoBond(connBond, atom))
 				mBondType[connBond] = cBondTypeSingle;
 			}
@@ -1699,7 +1708,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		// We may have a rare case without any single bond (e.g. O=S(=NH)=NMe) with parities assigned from 3D-coords
 		boolean singleBondFound = false;
 		for (int i=0; i<allConnAtoms; i++) {
-			if (getBondOrder(mConnBond[atom][i]) == 1) {
+			if (getBondOrder(mConnBond[mConnOffset[atom]+i]) == 1) {
 				singleBondFound = true;
 				break;
 				}
@@ -1711,12 +1720,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		double angle[] = new double[allConnAtoms];
 		for (int i=0; i<allConnAtoms; i++)
-			angle[i] = getBondAngle(mConnAtom[atom][sortedConnMap[i]], atom);
+			angle[i] = getBondAngle(mConnAtom[mConnOffset[atom]+sortedConnMap[i]], atom);
 
 		for (int i=0; i<allConnAtoms; i++)
-			if (mBondAtom[0][mConnBond[atom][i]] == atom
-			 && getBondOrder(mConnBond[atom][i]) == 1)
-				mBondType[mConnBond[atom][i]] = cBondTypeSingle;
+			if (mBondAtom[0][mConnBond[mConnOffset[atom]+i]] == atom
+			 && getBondOrder(mConnBond[mConnOffset[atom]+i]) == 1)
+				mBondType[mConnBond[mConnOffset[atom]+i]] = cBondTypeSingle;
 
 		if (setFisherProjectionStereoBondsFromParity(atom, sortedConnMap, angle))
 			return;
@@ -1725,9 +1734,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		// as the new stereo bond. Otherwise find a preferred stereo bond.
 		int preferredBond = -1;
 		for (int i=0; i<allConnAtoms; i++) {
-			int connBond = mConnBond[atom][i];
+			int connBond = mConnBond[mConnOffset[atom]+i];
 			if (isStereoBond(connBond, atom)) {
-				mBondType[mConnBond[atom][i]] = cBondTypeSingle;
+				mBondType[mConnBond[mConnOffset[atom]+i]] = cBondTypeSingle;
 				if (preferredBond == -1)
 					preferredBond = connBond;
 				else
@@ -1744,7 +1753,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int preferredBondIndex = -1;
 		for (int i=0; i<allConnAtoms; i++) {
-			if (preferredBond == mConnBond[atom][sortedConnMap[i]]) {
+			if (preferredBond == mConnBond[mConnOffset[atom]+sortedConnMap[i]]) {
 				preferredBondIndex = i;
 				break;
 				}
@@ -1763,14 +1772,14 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			int lowestConnAtom = Integer.MAX_VALUE;
 			int lowestConnIndex = -1;
 			for (int j=0; j<mAllConnAtoms[atom]; j++) {
-				if ((i == 0 || mConnAtom[atom][j] > sortedConn[i-1]) && lowestConnAtom > mConnAtom[atom][j]) {
-					lowestConnAtom = mConnAtom[atom][j];
+				if ((i == 0 || mConnAtom[mConnOffset[atom]+j] > sortedConn[i-1]) && lowestConnAtom > mConnAtom[mConnOffset[atom]+j]) {
+					lowestConnAtom = mConnAtom[mConnOffset[atom]+j];
 					lowestConnIndex = j;
 					}
 				}
 
 			sortedConn[i] = lowestConnAtom;
-			if (mConnBond[atom][lowestConnIndex] == preferredBond)
+			if (mConnBond[mConnOffset[atom]+lowestConnIndex] == preferredBond)
 				preferredBondIndex = i;
 			}	*/
 
@@ -1838,7 +1847,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int bondType = (getAtomParity(atom) == parity) ? cBondTypeUp : cBondTypeDown;
 		for (int i=0; i<allConnAtoms; i++) {
 			if ((direction[i] & 1) == 1) {
-				int bond = mConnBond[atom][sortedConnMap[i]];
+				int bond = mConnBond[mConnOffset[atom]+sortedConnMap[i]];
 				mBondType[bond] = bondType;
 				if (mBondAtom[0][bond] != atom) {
 					mBondAtom[1][bond] = mBondAtom[0][bond];
@@ -1871,7 +1880,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int horizontalBondType = -1;
 		for (int i=0; i<allConnAtoms; i++) {
 			if ((direction[i] & 1) == 1) { // horizontal bond
-				int bondType = mBondType[mConnBond[atom][sortedConnMap[i]]];
+				int bondType = mBondType[mConnBond[mConnOffset[atom]+sortedConnMap[i]]];
 				if (horizontalBondType != -1
 				 && horizontalBondType != bondType)
 					return cAtomParityUnknown;
@@ -1920,11 +1929,11 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			isUsed[direction[i]] = true;
 
 			if ((direction[i] & 1) == 0) {  // vertical bond
-				if (mBondType[mConnBond[atom][sortedConnMap[i]]] != cBondTypeSingle)
+				if (mBondType[mConnBond[mConnOffset[atom]+sortedConnMap[i]]] != cBondTypeSingle)
 					return false;
 				}
 			else {
-				if (!isStereoBond(mConnBond[atom][sortedConnMap[i]], atom))
+				if (!isStereoBond(mConnBond[mConnOffset[atom]+sortedConnMap[i]], atom))
 					return false;
 				}
 			}
@@ -1934,13 +1943,14 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	
 	private void setAlleneStereoBondFromParity(int atom) {
 			// find preferred bond to serve as stereobond
+		int offset = mConnOffset[atom];
 		if (mConnAtoms[atom] != 2
-		 || mConnBondOrder[atom][0] != 2
-		 || mConnBondOrder[atom][1] != 2
-		 || mConnAtoms[mConnAtom[atom][0]] < 2
-		 || mConnAtoms[mConnAtom[atom][1]] < 2
-		 || mPi[mConnAtom[atom][0]] != 1
-		 || mPi[mConnAtom[atom][1]] != 1) {
+		 || mConnBondOrder[offset] != 2
+		 || mConnBondOrder[offset+1] != 2
+		 || mConnAtoms[mConnAtom[offset]] < 2
+		 || mConnAtoms[mConnAtom[offset+1]] < 2
+		 || mPi[mConnAtom[offset]] != 1
+		 || mPi[mConnAtom[offset+1]] != 1) {
 			setAtomParity(atom, cAtomParityNone, false);
 			return;
 			}
@@ -1951,18 +1961,19 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int oppositeAlleneAtom = -1;
 		int bestScore = 0;
 		for (int i=0; i<2; i++) {
-			int alleneAtom = mConnAtom[atom][i];
+			int alleneAtom = mConnAtom[offset+i];
+			int alleneOffset = mConnOffset[alleneAtom];
 			for (int j=0; j<mAllConnAtoms[alleneAtom]; j++) {
-				int connAtom = mConnAtom[alleneAtom][j];
+				int connAtom = mConnAtom[alleneOffset+j];
 				if (connAtom != atom) {
-					int connBond = mConnBond[alleneAtom][j];
+					int connBond = mConnBond[alleneOffset+j];
 					int score = getStereoBondScore(connBond,connAtom);
 					if (bestScore < score) {
 						bestScore = score;
 						preferredAtom = connAtom;
 						preferredBond = connBond;
 						preferredAlleneAtom = alleneAtom;
-						oppositeAlleneAtom = mConnAtom[atom][1-i];
+						oppositeAlleneAtom = mConnAtom[offset+1-i];
 						}
 					}
 				}
@@ -1971,10 +1982,13 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		if (preferredAtom == -1)
 			return;
 
-		for (int i=0; i<2; i++)
-			for (int j=0; j<mAllConnAtoms[mConnAtom[atom][i]]; j++)
-				if (mConnAtom[mConnAtom[atom][i]][j] != atom)
-					mBondType[mConnBond[mConnAtom[atom][i]][j]] = cBondTypeSingle;
+		for (int i=0; i<2; i++) {
+			int alleneAtom = mConnAtom[offset+i];
+			int alleneOffset = mConnOffset[alleneAtom];
+			for (int j=0; j<mAllConnAtoms[alleneAtom]; j++)
+				if (mConnAtom[alleneOffset+j] != atom)
+					mBondType[mConnBond[alleneOffset+j]] = cBondTypeSingle;
+			}
 
 		if (mBondAtom[1][preferredBond] != preferredAtom) {
 			mBondAtom[0][preferredBond] = mBondAtom[1][preferredBond];
@@ -1983,7 +1997,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int highPriorityAtom = Integer.MAX_VALUE;
 		for (int i = 0; i< mConnAtoms[preferredAlleneAtom]; i++) {
-			int connAtom = mConnAtom[preferredAlleneAtom][i];
+			int connAtom = mConnAtom[mConnOffset[preferredAlleneAtom]+i];
 			if ((connAtom != atom) && (highPriorityAtom > connAtom))
 				highPriorityAtom = connAtom;
 			}
@@ -1991,7 +2005,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int[] oppositeAtom = new int[2];
 		int oppositeAtoms = 0;
 		for (int i = 0; i< mConnAtoms[oppositeAlleneAtom]; i++) {
-			int connAtom = mConnAtom[oppositeAlleneAtom][i];
+			int connAtom = mConnAtom[mConnOffset[oppositeAlleneAtom]+i];
 			if (connAtom != atom)
 				oppositeAtom[oppositeAtoms++] = connAtom;
 			}
@@ -2044,9 +2058,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		for (int i=0; i<2; i++) {
 			int atom = mBondAtom[i][bond];
 			for (int j=0; j<mAllConnAtoms[atom]; j++) {
-				int connBond = mConnBond[atom][j];
+				int connBond = mConnBond[mConnOffset[atom]+j];
 				if (connBond != bond && getBondOrder(connBond) == 1) {
-					int connAtom = mConnAtom[atom][j];
+					int connAtom = mConnAtom[mConnOffset[atom]+j];
 					int score = getStereoBondScore(connBond, connAtom);
 					if (bestScore < score) {
 						bestScore = score;
@@ -2064,7 +2078,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		for (int i=0; i<2; i++) {
 			for (int j=0; j<mAllConnAtoms[mBondAtom[i][bond]]; j++) {
-				int connBond = mConnBond[mBondAtom[i][bond]][j];
+				int connBond = mConnBond[mConnOffset[mBondAtom[i][bond]]+j];
 				if (connBond != bond && getBondOrder(connBond) == 1)
 					mBondType[connBond] = cBondTypeSingle;
 				}
@@ -2077,16 +2091,16 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int highPriorityAtom = Integer.MAX_VALUE;
 		for (int i = 0; i< mConnAtoms[preferredBINAPAtom]; i++) {
-			int connAtom = mConnAtom[preferredBINAPAtom][i];
-			if ((mConnBond[preferredBINAPAtom][i] != bond) && (highPriorityAtom > connAtom))
+			int connAtom = mConnAtom[mConnOffset[preferredBINAPAtom]+i];
+			if ((mConnBond[mConnOffset[preferredBINAPAtom]+i] != bond) && (highPriorityAtom > connAtom))
 				highPriorityAtom = connAtom;
 	   		}
 
 		int[] oppositeAtom = new int[2];
 		int oppositeAtoms = 0;
 		for (int i = 0; i< mConnAtoms[oppositeBINAPAtom]; i++)
-			if (mConnBond[oppositeBINAPAtom][i] != bond)
-				oppositeAtom[oppositeAtoms++] = mConnAtom[oppositeBINAPAtom][i];
+			if (mConnBond[mConnOffset[oppositeBINAPAtom]+i] != bond)
+				oppositeAtom[oppositeAtoms++] = mConnAtom[mConnOffset[oppositeBINAPAtom]+i];
 
 		double binapAngle = getBondAngle(preferredBINAPAtom, oppositeBINAPAtom);
 		double angleDif = 0.0;
@@ -2127,7 +2141,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int allConnAtoms = mAllConnAtoms[atom];
 		double[] angle = new double[allConnAtoms];
 		for (int i=0; i<allConnAtoms; i++)
-			angle[i] = getBondAngle(atom, mConnAtom[atom][i]);
+			angle[i] = getBondAngle(atom, mConnAtom[mConnOffset[atom]+i]);
 		for (int i=1; i<allConnAtoms; i++) {
 			for (int j=0; j<i; j++) {
 				if (bondsAreParallel(angle[i], angle[j])) {
@@ -2139,7 +2153,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 							angleDistanceSum2 += Math.abs(Angle.difference(angle[j], angle[k]));
 							}
 						}
-					int bond = (angleDistanceSum1 < angleDistanceSum2) ? mConnBond[atom][i] : mConnBond[atom][j];
+					int bond = (angleDistanceSum1 < angleDistanceSum2) ? mConnBond[mConnOffset[atom]+i] : mConnBond[mConnOffset[atom]+j];
 					if (getBondOrder(bond) == 1)
 						return bond;
 					}
@@ -2149,8 +2163,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int preferredBond = -1;
 		int bestScore = 0;
 		for (int i=0; i<allConnAtoms; i++) {
-			int connAtom = mConnAtom[atom][i];
-			int connBond = mConnBond[atom][i];
+			int connAtom = mConnAtom[mConnOffset[atom]+i];
+			int connBond = mConnBond[mConnOffset[atom]+i];
 			int score = getStereoBondScore(connBond, connAtom);
 			if (bestScore < score) {
 				bestScore = score;
@@ -2165,11 +2179,11 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int preferredBond = -1;
 		int bestScore = 0;
 		for (int i=0; i<2; i++) {
-			int alleneAtom = mConnAtom[atom][i];
+			int alleneAtom = mConnAtom[mConnOffset[atom]+i];
 			for (int j=0; j<mAllConnAtoms[alleneAtom]; j++) {
-				int connAtom = mConnAtom[alleneAtom][j];
+				int connAtom = mConnAtom[mConnOffset[alleneAtom]+j];
 				if (connAtom != atom) {
-					int connBond = mConnBond[alleneAtom][j];
+					int connBond = mConnBond[mConnOffset[alleneAtom]+j];
 					int score = getStereoBondScore(connBond, connAtom);
 					if (bestScore < score) {
 						bestScore = score;
@@ -2188,9 +2202,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		for (int i=0; i<2; i++) {
 			int atom = mBondAtom[i][bond];
 			for (int j=0; j<mAllConnAtoms[atom]; j++) {
-				int connAtom = mConnAtom[atom][j];
+				int connAtom = mConnAtom[mConnOffset[atom]+j];
 				if (connAtom != mBondAtom[1-i][bond]) {
-					int connBond = mConnBond[atom][j];
+					int connBond = mConnBond[mConnOffset[atom]+j];
 					int score = getStereoBondScore(connBond, connAtom);
 					if (bestScore < score) {
 						bestScore = score;
@@ -2212,11 +2226,11 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		int center = -1;
 		if (mPi[atom] == 1) {
 			for (int i = 0; i< mConnAtoms[atom]; i++) {
-				if (mConnBondOrder[atom][i] == 2) {
-					int connAtom = mConnAtom[atom][i];
+				if (mConnBondOrder[mConnOffset[atom]+i] == 2) {
+					int connAtom = mConnAtom[mConnOffset[atom]+i];
 					if (mConnAtoms[connAtom] == 2 && mPi[connAtom] == 2) {
 						for (int j=0; j<2; j++) {
-							int endAtom = mConnAtom[connAtom][j];
+							int endAtom = mConnAtom[mConnOffset[connAtom]+j];
 							if (endAtom != atom && mPi[endAtom] == 1) {
 								center = connAtom;
 								break;
@@ -2241,8 +2255,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	private int findBINAPOppositeAtom(int atom) {
 		if (mConnAtoms[atom] == 3 && isAromaticAtom(atom) && getAtomRingSize(atom) >= 6)
 			for (int i = 0; i< mConnAtoms[atom]; i++)
-				if (isBINAPChiralityBond(mConnBond[atom][i]))
-					return mConnAtom[atom][i];
+				if (isBINAPChiralityBond(mConnBond[mConnOffset[atom]+i]))
+					return mConnAtom[mConnOffset[atom]+i];
 		return -1;
 		}
 
@@ -2258,8 +2272,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	public int findBINAPChiralityBond(int atom) {
 		if (mConnAtoms[atom] == 3 && isAromaticAtom(atom) && getAtomRingSize(atom) >= 6)
 			for (int i = 0; i< mConnAtoms[atom]; i++)
-				if (isBINAPChiralityBond(mConnBond[atom][i]))
-					return mConnBond[atom][i];
+				if (isBINAPChiralityBond(mConnBond[mConnOffset[atom]+i]))
+					return mConnBond[mConnOffset[atom]+i];
 		return -1;
 		}
 
@@ -2277,8 +2291,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			if (mAtomicNo[atom1] == 7) {
 				int atom2 = mBondAtom[1-i][bond];
 				for (int j = 0; j< mConnAtoms[atom2]; j++) {
-					int connAtom = mConnAtom[atom2][j];
-					int connBond = mConnBond[atom2][j];
+					int connAtom = mConnAtom[mConnOffset[atom2]+j];
+					int connBond = mConnBond[mConnOffset[atom2]+j];
 					if ((mAtomicNo[connAtom] == 7
 					  || mAtomicNo[connAtom] == 8
 					  || mAtomicNo[connAtom] == 16)
@@ -2310,21 +2324,21 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			return false;
 		int heteroCount = 0;
 		for (int i = 0; i< mConnAtoms[atom]; i++) {
-			if (mConnBondOrder[atom][i] == 1) {
-				int atomicNo = mAtomicNo[mConnAtom[atom][i]];
+			if (mConnBondOrder[mConnOffset[atom]+i] == 1) {
+				int atomicNo = mAtomicNo[mConnAtom[mConnOffset[atom]+i]];
 				if (atomicNo == 8 || atomicNo == 9 || atomicNo == 17)
 					heteroCount++;
 				}
 			}
 		if (heteroCount == 0) {
 			for (int i = 0; i< mConnAtoms[atom]; i++) {
-				int connAtom = mConnAtom[atom][i];
+				int connAtom = mConnAtom[mConnOffset[atom]+i];
 				if (mPi[connAtom] != 0) {
 					if (isAromaticAtom(connAtom)) {
 						if (getAtomRingSize(connAtom) >= 5) {
 							int orthoSubstituentCount = 0;
 							for (int j = 0; j< mConnAtoms[connAtom]; j++) {
-								int ortho = mConnAtom[connAtom][j];
+								int ortho = mConnAtom[mConnOffset[connAtom]+j];
 								if (ortho != atom && mConnAtoms[ortho] >= 3)
 									orthoSubstituentCount++;
 								}
@@ -2337,8 +2351,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 					// vinyloge amides, etc.
 					for (int j = 0; j< mConnAtoms[connAtom]; j++) {
-						if ((mConnBondOrder[connAtom][j] == 2 || isAromaticBond(mConnBond[connAtom][j]))
-						 && isStabilizedAtom(mConnAtom[connAtom][j]))
+						if ((mConnBondOrder[mConnOffset[connAtom]+j] == 2 || isAromaticBond(mConnBond[mConnOffset[connAtom]+j]))
+						 && isStabilizedAtom(mConnAtom[mConnOffset[connAtom]+j]))
 							return true;
 						}
 					}
@@ -2346,19 +2360,19 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			}
 		if (heteroCount < 2) {
 			for (int i = 0; i< mConnAtoms[atom]; i++) {
-				int connAtom = mConnAtom[atom][i];
+				int connAtom = mConnAtom[mConnOffset[atom]+i];
 				boolean isStabilized = false;
 				boolean hasCompetitor = false;
 				for (int j = 0; j< mConnAtoms[connAtom]; j++) {
-					if (mConnAtom[connAtom][j] != atom) {
-						if (mConnBondOrder[connAtom][j] != 1
-						 && (mAtomicNo[mConnAtom[connAtom][j]] == 7
-						  || mAtomicNo[mConnAtom[connAtom][j]] == 8
-						  || mAtomicNo[mConnAtom[connAtom][j]] == 16))
+					if (mConnAtom[mConnOffset[connAtom]+j] != atom) {
+						if (mConnBondOrder[mConnOffset[connAtom]+j] != 1
+						 && (mAtomicNo[mConnAtom[mConnOffset[connAtom]+j]] == 7
+						  || mAtomicNo[mConnAtom[mConnOffset[connAtom]+j]] == 8
+						  || mAtomicNo[mConnAtom[mConnOffset[connAtom]+j]] == 16))
 							isStabilized = true;
 	
-						if (mConnBondOrder[connAtom][j] == 1
-				   		 && mAtomicNo[mConnAtom[connAtom][j]] == 7)
+						if (mConnBondOrder[mConnOffset[connAtom]+j] == 1
+				   		 && mAtomicNo[mConnAtom[mConnOffset[connAtom]+j]] == 7)
 							hasCompetitor = true;
 						}
 					}
@@ -2397,12 +2411,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 		int orthoSubstituentCount = 0;
 		for (int j = 0; j< mConnAtoms[atom1]; j++) {
-			int connAtom = mConnAtom[atom1][j];
+			int connAtom = mConnAtom[mConnOffset[atom1]+j];
 			if (connAtom != atom2 && mConnAtoms[connAtom] > 2)
 				orthoSubstituentCount++;
 			}
 		for (int j = 0; j< mConnAtoms[atom2]; j++) {
-			int connAtom = mConnAtom[atom2][j];
+			int connAtom = mConnAtom[mConnOffset[atom2]+j];
 			if (connAtom != atom1 && mConnAtoms[connAtom] > 2)
 				orthoSubstituentCount++;
 			}
@@ -2427,8 +2441,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		double minDistanceSquare = avbl * avbl / 16.0;
 		for (int atom1=1; atom1<mAllAtoms; atom1++) {
 			for (int atom2=0; atom2<atom1; atom2++) {
-				double xdif = mCoordinates[atom2].x - mCoordinates[atom1].x;
-				double ydif = mCoordinates[atom2].y - mCoordinates[atom1].y;
+				double xdif = mAtomX[atom2] - mAtomX[atom1];
+				double ydif = mAtomY[atom2] - mAtomY[atom1];
 				if ((xdif*xdif + ydif*ydif) < minDistanceSquare)
 					throw new Exception("The distance between two atoms is too close.");
 				}
@@ -2461,8 +2475,8 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 				if (valence == 4) {
 					// normalize -N(=O)-OH to -N(+)(=O)-O(-)
 					for (int i = 0; i< mConnAtoms[atom]; i++) {
-						int connAtom = mConnAtom[atom][i];
-						if (mConnBondOrder[atom][i] == 1
+						int connAtom = mConnAtom[mConnOffset[atom]+i];
+						if (mConnBondOrder[mConnOffset[atom]+i] == 1
 						 && mAtomicNo[connAtom] == 8
 						 && mConnAtoms[connAtom] == 1
 						 && mAtomCharge[connAtom] == 0) {
@@ -2476,9 +2490,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 				else if (valence == 5) {
 					// normalize -N(=O)2 to -N(+)(=O)-O(-), -N#N to -N(+)=N(-),
 					for (int i = 0; i< mConnAtoms[atom]; i++) {
-						int connAtom = mConnAtom[atom][i];
-						int connBond = mConnBond[atom][i];
-						if (mConnBondOrder[atom][i] == 2
+						int connAtom = mConnAtom[mConnOffset[atom]+i];
+						int connBond = mConnBond[mConnOffset[atom]+i];
+						if (mConnBondOrder[mConnOffset[atom]+i] == 2
 						 && mAtomicNo[connAtom] == 8) {
 							found = true;
 							mAtomCharge[atom]++;
@@ -2486,7 +2500,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 							mBondType[connBond] = Molecule.cBondTypeSingle;
 							break;
 							}
-						if (mConnBondOrder[atom][i] == 3
+						if (mConnBondOrder[mConnOffset[atom]+i] == 3
 						 && mAtomicNo[connAtom] == 7) {
 							found = true;
 							mAtomCharge[atom]++;
@@ -2657,7 +2671,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 */
 	private boolean hasNegativeNeighbour(int atom) {
 		for (int i = 0; i< mConnAtoms[atom]; i++)
-			if (mAtomCharge[mConnAtom[atom][i]] < 0)
+			if (mAtomCharge[mConnAtom[mConnOffset[atom]+i]] < 0)
 				return true;
 		return false;
 		}
@@ -2669,7 +2683,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 	 */
 	private boolean hasPositiveNeighbour(int atom) {
 		for (int i = 0; i< mConnAtoms[atom]; i++)
-			if (mAtomCharge[mConnAtom[atom][i]] > 0)
+			if (mAtomCharge[mConnAtom[mConnOffset[atom]+i]] > 0)
 				return true;
 		return false;
 		}
@@ -2698,7 +2712,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 			int other1 = -1;
 			boolean found = false;
 			for (int j = 0; j< mConnAtoms[atom1]; j++) {
-				int conn = mConnAtom[atom1][j];
+				int conn = mConnAtom[mConnOffset[atom1]+j];
 				if (conn != atom2) {
 					if (conn == connAtom)
 						found = true;
@@ -2710,7 +2724,7 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 				int lowConn = -1;
 				int highConn = -1;
 				for (int j = 0; j< mConnAtoms[atom2]; j++) {
-					int conn = mConnAtom[atom2][j];
+					int conn = mConnAtom[mConnOffset[atom2]+j];
 					if (conn != atom1) {
 						if (lowConn == -1)
 							lowConn = conn;
@@ -2812,21 +2826,21 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 			for (int atom=0; atom<mAtoms; atom++) {	// allylic & stabilized flags
 				for (int i = 0; i< mConnAtoms[atom]; i++) {
-					int connBond = mConnBond[atom][i];
+					int connBond = mConnBond[mConnOffset[atom]+i];
 					if (isAromaticBond(connBond))
 						continue;
 
-					int connAtom = mConnAtom[atom][i];
+					int connAtom = mConnAtom[mConnOffset[atom]+i];
 					for (int j = 0; j< mConnAtoms[connAtom]; j++) {
-						if (mConnBond[connAtom][j] == connBond)
+						if (mConnBond[mConnOffset[connAtom]+j] == connBond)
 							continue;
 
-						if (mConnBondOrder[connAtom][j] > 1) {
-						 	if (mAtomicNo[mConnAtom[connAtom][j]] == 6)
+						if (mConnBondOrder[mConnOffset[connAtom]+j] > 1) {
+						 	if (mAtomicNo[mConnAtom[mConnOffset[connAtom]+j]] == 6)
 								mAtomFlags[atom] |= cAtomFlagAllylic;
 							else {
-								if (!isAromaticBond(mConnBond[connAtom][j])
-								 && isElectronegative(mConnAtom[connAtom][j]))
+								if (!isAromaticBond(mConnBond[mConnOffset[connAtom]+j])
+								 && isElectronegative(mConnAtom[mConnOffset[connAtom]+j]))
 									mAtomFlags[atom] |= cAtomFlagStabilized;
 								}
 							}
@@ -2843,12 +2857,12 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 					 && ((cAtomFlagStabilized | cAtomFlagAromatic)
 					 		& mAtomFlags[atom]) == cAtomFlagStabilized) {
 						for (int i = 0; i< mConnAtoms[atom]; i++) {
-							if (mConnBondOrder[atom][i] > 1) {
-								int connAtom = mConnAtom[atom][i];
-								int connBond = mConnBond[atom][i];
+							if (mConnBondOrder[mConnOffset[atom]+i] > 1) {
+								int connAtom = mConnAtom[mConnOffset[atom]+i];
+								int connBond = mConnBond[mConnOffset[atom]+i];
 								for (int j = 0; j< mConnAtoms[connAtom]; j++) {
-									if (mConnBond[connAtom][j] != connBond) {
-										int candidate = mConnAtom[connAtom][j];
+									if (mConnBond[mConnOffset[connAtom]+j] != connBond) {
+										int candidate = mConnAtom[mConnOffset[connAtom]+j];
 										if ((mAtomFlags[candidate] & cAtomFlagStabilized) == 0) {
 											mAtomFlags[candidate] |= cAtomFlagStabilized;
 											found = true;
@@ -3083,25 +3097,40 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 		}
 
 
+	/**
+	 * Neighbours are stored in compressed sparse row format: the neighbours of an atom are found
+	 * in mConnAtom, mConnBond and mConnBondOrder from mConnOffset[atom] to mConnOffset[atom+1]-1.
+	 * Arrays are only reallocated, if they are too small for the current molecule.
+	 */
 	private void calculateNeighbours() {
-		mConnAtoms = new int[mAllAtoms];
-		mAllConnAtoms = new int[mAllAtoms];
-		mConnAtom = new int[mAllAtoms][];
-		mConnBond = new int[mAllAtoms][];
-		mConnBondOrder = new int[mAllAtoms][];
-		mPi = new int[mAtoms];
-
-		int[] connCount = new int[mAllAtoms];
-		for(int bnd=0; bnd<mAllBonds; bnd++) {
-			connCount[mBondAtom[0][bnd]]++;
-			connCount[mBondAtom[1][bnd]]++;
+		if (mConnAtoms == null || mConnAtoms.length < mAllAtoms) {
+			mConnAtoms = new int[mAllAtoms];
+			mAllConnAtoms = new int[mAllAtoms];
+			mConnOffset = new int[mAllAtoms+1];
+			mPi = new int[mAllAtoms];
+			}
+		else {
+			for(int atom=0; atom<mAllAtoms; atom++) {
+				mConnAtoms[atom] = 0;
+				mAllConnAtoms[atom] = 0;
+				mPi[atom] = 0;
+				}
 			}
 
-		for(int atom=0; atom<mAllAtoms; atom++) {
-			mConnAtom[atom] = new int[connCount[atom]];
-			mConnBond[atom] = new int[connCount[atom]];
-			mConnBondOrder[atom] = new int[connCount[atom]];
+		if (mConnAtom == null || mConnAtom.length < 2*mAllBonds) {
+			mConnAtom = new int[2*mAllBonds];
+			mConnBond = new int[2*mAllBonds];
+			mConnBondOrder = new int[2*mAllBonds];
+			}
+
+		for(int atom=0; atom<=mAllAtoms; atom++)
+			mConnOffset[atom] = 0;
+		for(int bnd=0; bnd<mAllBonds; bnd++) {
+			mConnOffset[mBondAtom[0][bnd]+1]++;
+			mConnOffset[mBondAtom[1][bnd]+1]++;
 			}
+		for(int atom=0; atom<mAllAtoms; atom++)
+			mConnOffset[atom+1] += mConnOffset[atom];
 
 		boolean metalBondFound = false;
 		for(int bnd=0; bnd<mBonds; bnd++) {
@@ -3113,10 +3142,10 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 			for (int i = 0; i < 2; i++) {
 				int atom = mBondAtom[i][bnd];
-				int allConnAtoms = mAllConnAtoms[atom];
-				mConnBondOrder[atom][allConnAtoms] = order;
-				mConnAtom[atom][allConnAtoms] = mBondAtom[1 - i][bnd];
-				mConnBond[atom][allConnAtoms] = bnd;
+				int index = mConnOffset[atom] + mAllConnAtoms[atom];
+				mConnBondOrder[index] = order;
+				mConnAtom[index] = mBondAtom[1 - i][bnd];
+				mConnBond[index] = bnd;
 				mAllConnAtoms[atom]++;	// all non metal-bonded neighbours (non-H, H)
 				mConnAtoms[atom]++;	// non-H and non-metal-bonded neighbours
 				if (atom < mAtoms) {
@@ -3137,10 +3166,10 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 
 			for (int i = 0; i < 2; i++) {
 				int atom = mBondAtom[i][bnd];
-				int allConnAtoms = mAllConnAtoms[atom];
-				mConnBondOrder[atom][allConnAtoms] = order;
-				mConnAtom[atom][allConnAtoms] = mBondAtom[1 - i][bnd];
-				mConnBond[atom][allConnAtoms] = bnd;
+				int index = mConnOffset[atom] + mAllConnAtoms[atom];
+				mConnBondOrder[index] = order;
+				mConnAtom[index] = mBondAtom[1 - i][bnd];
+				mConnBond[index] = bnd;
 				mAllConnAtoms[atom]++;	// all non metal-bonded neighbours (non-H, H)
 				if (mBondAtom[1-i][bnd] < mAtoms)
 					mConnAtoms[atom]++;
@@ -3157,9 +3186,10 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 				if (order == 0) {
 					for (int i = 0; i < 2; i++) {
 						int atom = mBondAtom[i][bnd];
-						mConnBondOrder[atom][allConnAtoms[atom]] = order;
-						mConnAtom[atom][allConnAtoms[atom]] = mBondAtom[1 - i][bnd];
-						mConnBond[atom][allConnAtoms[atom]] = bnd;
+						int index = mConnOffset[atom] + allConnAtoms[atom];
+						mConnBondOrder[index] = order;
+						mConnAtom[index] = mBondAtom[1 - i][bnd];
+						mConnBond[index] = bnd;
 						allConnAtoms[atom]++;		// all neighbours (non-H, H, metal-bonded)
 						}
 					}
@@ -3263,9 +3293,9 @@ public class ExtendedMolecule extends Molecule implements Serializable {
 					}
 
 				for (int i=mConnAtoms[atom]; i<mAllConnAtoms[atom]; i++) {
-					int connBond = mConnBond[atom][i];
+					int connBond = mConnBond[mConnOffset[atom]+i];
 					if (mBondType[connBond] == cBondTypeSingle) {	// no stereo bond
-						mAtomicNo[mConnAtom[atom][i]] = -1;
+						mAtomicNo[mConnAtom[mConnOffset[atom]+i]] = -1;
 						mBondType[connBond] = cBondTypeDeleted;
 						deleteHydrogens = true;
 						}
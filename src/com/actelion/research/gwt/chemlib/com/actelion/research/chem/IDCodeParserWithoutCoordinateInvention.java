@@ -49,6 +49,16 @@ public class IDCodeParserWithoutCoordinateInvention {
 	private StereoMolecule	mMol;
 	private byte[]			mDecodingBytes;
 	private	int				mIDCodeBitsAvail,mIDCodeTempData,mIDCodeBufferIndex;
+	private boolean			mStructureOnly;
+
+	// 6-bit values with reversed bit order, which lets decodeBits() take multiple bits at once
+	private static final int[] REVERSED_6BIT = new int[64];
+	static {
+		for (int i=0; i<64; i++)
+			for (int j=0; j<6; j++)
+				if ((i & (1 << j)) != 0)
+					REVERSED_6BIT[i] |= (32 >> j);
+		}
 
 	protected boolean ensure2DCoordinates() {
 		return false;
@@ -147,6 +157,26 @@ public class IDCodeParserWithoutCoordinateInvention {
 		parse(mol, idcode, null);
 		}
 
+	/**
+	 * Parses the structure part of the idcode only, which is what substructure or similarity
+	 * searches need: atoms, bonds, charges, query features, stereo parities and resolved
+	 * aromatic bonds. Any coordinates following the idcode are skipped, no coordinates are
+	 * invented and no up/down-bonds are created from parities, even if this parser was
+	 * created to ensure 2D-coordinates. Parities are taken from the idcode as they are.
+	 * Together with a reused molecule this is the fastest way to decode many idcodes.
+	 * @param mol molecule object to be filled with the idcode content
+	 * @param idcode may be null; may contain coordinates separated by a space character
+	 */
+	public void parseStructure(StereoMolecule mol, byte[] idcode) {
+		mStructureOnly = true;
+		try {
+			parse(mol, idcode, null);
+			}
+		finally {
+			mStructureOnly = false;
+			}
+		}
+
 	/**
 	 * Parses the idcode and populates the given molecule to represent the passed idcode.
 	 * @param mol molecule object to be filled with the idcode content
@@ -162,6 +192,9 @@ public class IDCodeParserWithoutCoordinateInvention {
 
 	/**
 	 * Parses the idcode and populates the given molecule to represent the passed idcode.
+	 * The molecule's arrays are sized once from the atom and bond counts of the idcode
+	 * and are never shrunk. Thus, one molecule may be reused to parse many idcodes
+	 * without any reallocation, once it has reached the size of the largest one.
 	 * @param mol molecule object to be filled with the idcode content
 	 * @param idcode may be null
 	 * @param coordinates may be null
@@ -169,6 +202,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 	 */
 	public void parse(StereoMolecule mol, byte[] idcode, byte[] coordinates) {
 		int version = Canonizer.cIDCodeVersion2;
+		boolean ensure2DCoordinates = !mStructureOnly && ensure2DCoordinates();
 		mMol = mol;
 		mMol.deleteMolecule();
 
@@ -198,6 +232,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 		int oxygens = decodeBits(abits);
 		int otherAtoms = decodeBits(abits);
 		int chargedAtoms = decodeBits(abits);
+		mMol.ensureCapacity(allAtoms, allBonds);
 		for (int atom=0; atom<allAtoms; atom++)
 			mMol.addAtom(6);
 		for (int i=0; i<nitrogens; i++)
@@ -253,7 +288,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 			}
 
 		// don't use 3D coordinates, if we need 2D
-		if (ensure2DCoordinates() && coordsAre3D) {
+		if (ensure2DCoordinates && coordsAre3D) {
 			coordinates = null;
 			decodeOldCoordinates = false;
 			}
@@ -617,6 +652,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 
 		int coordinateIndex = 0;
 		if (coordinates == null
+		 && !mStructureOnly
 		 && idcode.length > mIDCodeBufferIndex+1
 		 && (idcode[mIDCodeBufferIndex+1] == ' ' || idcode[mIDCodeBufferIndex+1] == '\t')) {
 			coordinates = idcode;
@@ -660,6 +696,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 						int[] hCount = new int[allAtoms];
 						for (int atom = 0; atom < allAtoms; atom++)
 							hydrogenCount += (hCount[atom] = mMol.getImplicitHydrogens(atom));
+						mMol.ensureCapacity(allAtoms+hydrogenCount, allBonds+hydrogenCount);
 
 						for (int atom = 0; atom < allAtoms; atom++) {
 							for (int i = 0; i < hCount[atom]; i++) {
@@ -744,7 +781,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 		// during the next stereo recognition with atom coordinates to assign an unknown configuration rather
 		// than E or Z based on created or given coordinates.
 		// In a next step these double bonds are converted into cross bonds by
-		if (coords2DAvailable || ensure2DCoordinates()) {
+		if (coords2DAvailable || ensure2DCoordinates) {
 			mMol.ensureHelperArrays(Molecule.cHelperRings);
 			for (int bond=0; bond<mMol.getBonds(); bond++)
 				if (mMol.getBondOrder(bond) == 2
@@ -753,7 +790,7 @@ public class IDCodeParserWithoutCoordinateInvention {
 					mMol.setBondParityUnknownOrNone(bond);
 			}
 
-		if (!coords2DAvailable && ensure2DCoordinates()) {
+		if (!coords2DAvailable && ensure2DCoordinates) {
 			mMol.setParitiesValid(0);
 			try {
 				inventCoordinates(mMol);
@@ -929,22 +966,27 @@ public class IDCodeParserWithoutCoordinateInvention {
 		mIDCodeBitsAvail = 6;
 		mIDCodeBufferIndex = offset;
 		mDecodingBytes = bytes;
-		mIDCodeTempData = (bytes[mIDCodeBufferIndex] & 0x3F) << 11;
+		mIDCodeTempData = REVERSED_6BIT[bytes[mIDCodeBufferIndex] & 0x3F];
 		}
 
+	/**
+	 * Reads the next bits, the first read bit becoming the lowest bit of the result.
+	 * Bits are taken from the current 6-bit character in chunks rather than one by one.
+	 */
 	private int decodeBits(int bits) {
-		int allBits = bits;
-
 		int data = 0;
+		int shift = 0;
 		while (bits != 0) {
 			if (mIDCodeBitsAvail == 0) {
-				mIDCodeTempData = (mDecodingBytes[++mIDCodeBufferIndex] & 0x3F) << 11;
+				mIDCodeTempData = REVERSED_6BIT[mDecodingBytes[++mIDCodeBufferIndex] & 0x3F];
 				mIDCodeBitsAvail = 6;
 				}
-			data |= ((0x00010000 & mIDCodeTempData) >> (16 - allBits + bits));
-			mIDCodeTempData <<= 1;
-			bits--;
-			mIDCodeBitsAvail--;
+			int count = Math.min(bits, mIDCodeBitsAvail);
+			data |= (mIDCodeTempData & ((1 << count) - 1)) << shift;
+			mIDCodeTempData >>>= count;
+			mIDCodeBitsAvail -= count;
+			shift += count;
+			bits -= count;
 			}
 		return data;
 		}
@@ -418,7 +418,7 @@ public class Molecule implements Serializable {
 	transient protected int mBondType[];
 	transient protected int mBondFlags[];
 	transient protected int mBondQueryFeatures[];
-	transient protected Coordinates[] mCoordinates;
+	transient protected double mAtomX[],mAtomY[],mAtomZ[];
 	transient protected boolean mIsFragment;
 	transient protected boolean mIsRacemate;	 	// to indicate a molfileV2's chiral flat to be 0
 	transient protected boolean mProtectHydrogen;  	// protects hydrogens atoms from being converted to query features
@@ -488,9 +488,9 @@ public class Molecule implements Serializable {
 		mAtomicNo = new int[mMaxAtoms];
 		mAtomCharge = new int[mMaxAtoms];
 		mAtomMapNo = new int[mMaxAtoms];
-		mCoordinates = new Coordinates[mMaxAtoms];
-		for (int i=0; i<mMaxAtoms; i++)
-			mCoordinates[i] = new Coordinates();
+		mAtomX = new double[mMaxAtoms];
+		mAtomY = new double[mMaxAtoms];
+		mAtomZ = new double[mMaxAtoms];
 		mAtomMass = new int[mMaxAtoms];
 		mAtomFlags = new int[mMaxAtoms];
 		mAtomQueryFeatures = new int[mMaxAtoms];
@@ -523,7 +523,9 @@ public class Molecule implements Serializable {
 	 */
 	public int addAtom(double x, double y, double z) {
 		int atom = addAtom(6);
-		mCoordinates[atom].set(x, y, z);
+		mAtomX[atom] = x;
+		mAtomY[atom] = y;
+		mAtomZ[atom] = z;
 		return atom;
 		}
 
@@ -555,7 +557,9 @@ public class Molecule implements Serializable {
 		mAtomFlags[mAllAtoms] = 0;
 		mAtomQueryFeatures[mAllAtoms] = 0;
 		mAtomMapNo[mAllAtoms] = 0;
-		mCoordinates[mAllAtoms].set(0, 0, 0);
+		mAtomX[mAllAtoms] = 0;
+		mAtomY[mAllAtoms] = 0;
+		mAtomZ[mAllAtoms] = 0;
 
 		if (mAtomList != null)
 			mAtomList[mAllAtoms] = null;
@@ -644,7 +648,9 @@ public class Molecule implements Serializable {
 				setMaxAtoms(mMaxAtoms*2);
 
 			atom = addAtom(atomicNo);
-			mCoordinates[atom].set(x, y, 0);
+			mAtomX[atom] = x;
+			mAtomY[atom] = y;
+			mAtomZ[atom] = 0;
 			mAtomMass[atom] = mass;
 			setAtomAbnormalValence(atom, abnormalValence);
 			setAtomRadical(atom, radical);
@@ -1111,7 +1117,9 @@ public class Molecule implements Serializable {
 		destMol.mAtomMass[destAtom] = mAtomMass[sourceAtom];
 		destMol.mAtomFlags[destAtom] = mAtomFlags[sourceAtom];
 		destMol.mAtomQueryFeatures[destAtom] = destMol.mIsFragment ? mAtomQueryFeatures[sourceAtom] : 0;
-		destMol.mCoordinates[destAtom].set(mCoordinates[sourceAtom]);
+		destMol.mAtomX[destAtom] = mAtomX[sourceAtom];
+		destMol.mAtomY[destAtom] = mAtomY[sourceAtom];
+		destMol.mAtomZ[destAtom] = mAtomZ[sourceAtom];
 		destMol.mAtomMapNo[destAtom] = mAtomMapNo[sourceAtom];
 
 		if (destMol.mAtomList != null)
@@ -1324,9 +1332,15 @@ public class Molecule implements Serializable {
 		tempInt = mAtomMapNo[atom1];
 		mAtomMapNo[atom1] = mAtomMapNo[atom2];
 		mAtomMapNo[atom2] = tempInt;
-		Coordinates tempCoords = mCoordinates[atom1];
-		mCoordinates[atom1] = mCoordinates[atom2];
-		mCoordinates[atom2] = tempCoords;
+		double tempCoord = mAtomX[atom1];
+		mAtomX[atom1] = mAtomX[atom2];
+		mAtomX[atom2] = tempCoord;
+		tempCoord = mAtomY[atom1];
+		mAtomY[atom1] = mAtomY[atom2];
+		mAtomY[atom2] = tempCoord;
+		tempCoord = mAtomZ[atom1];
+		mAtomZ[atom1] = mAtomZ[atom2];
+		mAtomZ[atom2] = tempCoord;
 		if (mAtomList != null) {
 			int[] tempList = mAtomList[atom1];
 			mAtomList[atom1] = mAtomList[atom2];
@@ -1683,8 +1697,8 @@ public class Molecule implements Serializable {
 		double foundDistanceSquare = Double.MAX_VALUE;
 		double maxDistanceSquare = avbl * avbl / 12.0;
 		for (int atom=0; atom<mAllAtoms; atom++) {
-			double x = mCoordinates[atom].x;
-			double y = mCoordinates[atom].y;
+			double x = mAtomX[atom];
+			double y = mAtomY[atom];
 			double distanceSquare = (pickx-x) * (pickx-x) + (picky-y) * (picky-y);
 			if (distanceSquare < maxDistanceSquare
 			 && distanceSquare < foundDistanceSquare) {
@@ -1706,10 +1720,10 @@ public class Molecule implements Serializable {
 		double maxDistance = getAverageBondLength();
 		double foundDistance = Double.MAX_VALUE;
 		for (int bond=0; bond<mAllBonds; bond++) {
-			double x1 = mCoordinates[mBondAtom[0][bond]].x;
-			double y1 = mCoordinates[mBondAtom[0][bond]].y;
-			double x2 = mCoordinates[mBondAtom[1][bond]].x;
-			double y2 = mCoordinates[mBondAtom[1][bond]].y;
+			double x1 = mAtomX[mBondAtom[0][bond]];
+			double y1 = mAtomY[mBondAtom[0][bond]];
+			double x2 = mAtomX[mBondAtom[1][bond]];
+			double y2 = mAtomY[mBondAtom[1][bond]];
 
 			double dx = x2 - x1;// if pick position not within bond circle continue
 			double dy = y2 - y1;
@@ -1957,23 +1971,43 @@ public class Molecule implements Serializable {
 		}
 
 
+	/**
+	 * Atom coordinates are stored in separate x, y and z arrays.
+	 * This method returns a new Coordinates object with the atom's current coordinates.
+	 * Changing the returned object does not affect the molecule; use setCoordinates() instead.
+	 * @param atom
+	 * @return copy of the atom's coordinates
+	 */
+	public Coordinates copyCoordinates(int atom) {
+		return new Coordinates(mAtomX[atom], mAtomY[atom], mAtomZ[atom]);
+	}
+
+
+	/**
+	 * @deprecated Atom coordinates are not stored as Coordinates objects anymore.
+	 * This method returns a copy, which doesn't write changes back to the molecule.
+	 * Use copyCoordinates() to read and setCoordinates() to change an atom's coordinates.
+	 * @param atom
+	 * @return copy of the atom's coordinates
+	 */
+	@Deprecated
 	public Coordinates getCoordinates(int atom) {
-		return mCoordinates[atom];
+		return copyCoordinates(atom);
 	}
 
 
 	public double getAtomX(int atom) {
-		return mCoordinates[atom].x;
+		return mAtomX[atom];
 		}
 
 
 	public double getAtomY(int atom) {
-		return mCoordinates[atom].y;
+		return mAtomY[atom];
 		}
 
 
 	public double getAtomZ(int atom) {
-		return mCoordinates[atom].z;
+		return mAtomZ[atom];
 		}
 
 	public static double getDefaultAverageBondLength() {
@@ -2054,7 +2088,7 @@ public class Molecule implements Serializable {
 			double lowDistance = Double.MAX_VALUE;
 			for (int atom1=1; atom1<atoms; atom1++) {
 				for (int atom2=0; atom2<atom1; atom2++) {
-					double distance = mCoordinates[atom1].distance(mCoordinates[atom2]);
+					double distance = getAtomDistance(atom1, atom2);
 					if (distance > 0 && distance < lowDistance)
 						lowDistance = distance;
 					}
@@ -2066,14 +2100,22 @@ public class Molecule implements Serializable {
 		for (int bond=0; bond<bonds; bond++) {
 			if ((considerMetalBonds || mBondType[bond] != cBondTypeMetalLigand)
 			 && (mBondQueryFeatures[bond] & cBondQFBridge) == 0)
-				avblSum += mCoordinates[mBondAtom[1][bond]].distance(mCoordinates[mBondAtom[0][bond]]);
+				avblSum += getAtomDistance(mBondAtom[1][bond], mBondAtom[0][bond]);
 			}
 		return avblSum / consideredBonds;
 		}
 
 
+	private double getAtomDistance(int atom1, int atom2) {
+		double dx = mAtomX[atom2] - mAtomX[atom1];
+		double dy = mAtomY[atom2] - mAtomY[atom1];
+		double dz = mAtomZ[atom2] - mAtomZ[atom1];
+		return Math.sqrt(dx*dx + dy*dy + dz*dz);
+		}
+
+
 	public double getBondAngle(int atom1, int atom2) {
-		return getAngle(mCoordinates[atom1].x, mCoordinates[atom1].y, mCoordinates[atom2].x, mCoordinates[atom2].y);
+		return getAngle(mAtomX[atom1], mAtomY[atom1], mAtomX[atom2], mAtomY[atom2]);
 		}
 
 
@@ -2089,10 +2131,10 @@ public class Molecule implements Serializable {
 	 * @return torsion in the range: -pi <= torsion <= pi
 	 */
 	public double calculateTorsion(int[] atom) {
-		Coordinates c1 = mCoordinates[atom[0]];
-		Coordinates c2 = mCoordinates[atom[1]];
-		Coordinates c3 = mCoordinates[atom[2]];
-		Coordinates c4 = mCoordinates[atom[3]];
+		Coordinates c1 = copyCoordinates(atom[0]);
+		Coordinates c2 = copyCoordinates(atom[1]);
+		Coordinates c3 = copyCoordinates(atom[2]);
+		Coordinates c4 = copyCoordinates(atom[3]);
 
 		Coordinates v1 = c2.subC(c1);
 		Coordinates v2 = c3.subC(c2);
@@ -2164,8 +2206,8 @@ public class Molecule implements Serializable {
 	public double getBondLength(int bond) {
 		int atom1 = mBondAtom[0][bond];
 		int atom2 = mBondAtom[1][bond];
-		double xdif = mCoordinates[atom2].x - mCoordinates[atom1].x;
-		double ydif = mCoordinates[atom2].y - mCoordinates[atom1].y;
+		double xdif = mAtomX[atom2] - mAtomX[atom1];
+		double ydif = mAtomY[atom2] - mAtomY[atom1];
 		return Math.sqrt(xdif * xdif + ydif * ydif);
 		}
 
@@ -2304,10 +2346,9 @@ public class Molecule implements Serializable {
 		mAtomicNo = Arrays.copyOf(mAtomicNo, v);		// CXR: Do not used Arrays.copyOf: It's a 1.6 Feature!!
 		mAtomCharge = Arrays.copyOf(mAtomCharge, v);
 		mAtomMapNo = Arrays.copyOf(mAtomMapNo, v);
-		int orig = mCoordinates.length;
-		mCoordinates = Arrays.copyOf(mCoordinates, v);
-		for (int i=orig; i<v; i++)
-			mCoordinates[i] = new Coordinates();
+		mAtomX = Arrays.copyOf(mAtomX, v);
+		mAtomY = Arrays.copyOf(mAtomY, v);
+		mAtomZ = Arrays.copyOf(mAtomZ, v);
 		mAtomMass = Arrays.copyOf(mAtomMass, v);
 		mAtomFlags = Arrays.copyOf(mAtomFlags, v);
 		mAtomQueryFeatures = Arrays.copyOf(mAtomQueryFeatures, v);
@@ -2342,6 +2383,21 @@ public class Molecule implements Serializable {
 		}
 
 
+	/**
+	 * Makes sure that the molecule can hold the given number of atoms and bonds without growing
+	 * its arrays while atoms and bonds are added. Unlike setMaxAtoms() and setMaxBonds(), this never
+	 * reduces the current capacity. Parsers call this to size a new or reused molecule only once.
+	 * @param atoms
+	 * @param bonds
+	 */
+	public void ensureCapacity(int atoms, int bonds) {
+		if (mMaxAtoms < atoms)
+			setMaxAtoms(atoms);
+		if (mMaxBonds < bonds)
+			setMaxBonds(bonds);
+		}
+
+
 	/**
 	 * Allows to set a molecule name or identifier, that is, for instance, written to or read from molfiles.
 	 * @return
@@ -2830,19 +2886,32 @@ public class Molecule implements Serializable {
 
 
 	public void setAtomX(int atom, double x) {
-		mCoordinates[atom].x = x;
+		mAtomX[atom] = x;
 		mValidHelperArrays &= cHelperRings;
 		}
 
 
 	public void setAtomY(int atom, double y) {
-		mCoordinates[atom].y = y;
+		mAtomY[atom] = y;
 		mValidHelperArrays &= cHelperRings;
 		}
 
 
 	public void setAtomZ(int atom, double z) {
-		mCoordinates[atom].z = z;
+		mAtomZ[atom] = z;
+		mValidHelperArrays &= cHelperRings;
+		}
+
+
+	/**
+	 * Copies the given coordinates into the atom's x, y and z coordinates.
+	 * @param atom
+	 * @param c
+	 */
+	public void setCoordinates(int atom, Coordinates c) {
+		mAtomX[atom] = c.x;
+		mAtomY[atom] = c.y;
+		mAtomZ[atom] = c.z;
 		mValidHelperArrays &= cHelperRings;
 		}
 
@@ -3257,8 +3326,8 @@ public class Molecule implements Serializable {
 
 	public void translateCoords(double dx, double dy) {
 		for (int i=0; i<mAllAtoms; i++) {
-			mCoordinates[i].x += dx;
-			mCoordinates[i].y += dy;
+			mAtomX[i] += dx;
+			mAtomY[i] += dy;
 			}
 		mZoomRotationX += dx;
 		mZoomRotationY += dy;
@@ -3267,8 +3336,8 @@ public class Molecule implements Serializable {
 
 	public void scaleCoords(double f) {
 		for (int i=0; i<mAllAtoms; i++) {
-			mCoordinates[i].x *= f;
-			mCoordinates[i].y *= f;
+			mAtomX[i] *= f;
+			mAtomY[i] *= f;
 			}
 		}
 
@@ -3279,10 +3348,10 @@ public class Molecule implements Serializable {
 		mOriginalAngle = new double[mAllAtoms];
 		mOriginalDistance = new double[mAllAtoms];
 		for (int atom=0; atom<mAllAtoms; atom++) {
-			double dx = x - mCoordinates[atom].x;
-			double dy = y - mCoordinates[atom].y;
+			double dx = x - mAtomX[atom];
+			double dy = y - mAtomY[atom];
 			mOriginalDistance[atom] = Math.sqrt(dx*dx+dy*dy);	// distance to center of gravity
-			mOriginalAngle[atom] = getAngle(x, y, mCoordinates[atom].x, mCoordinates[atom].y);
+			mOriginalAngle[atom] = getAngle(x, y, mAtomX[atom], mAtomY[atom]);
 			}
 		}
 
@@ -3292,8 +3361,8 @@ public class Molecule implements Serializable {
 			if (!selected || isSelectedAtom(atom)) {
 				double newDistance = mOriginalDistance[atom] * zoom;
 				double newAngle = mOriginalAngle[atom] - angle;
-				mCoordinates[atom].x = mZoomRotationX + newDistance*Math.sin(newAngle);
-				mCoordinates[atom].y = mZoomRotationY + newDistance*Math.cos(newAngle);
+				mAtomX[atom] = mZoomRotationX + newDistance*Math.sin(newAngle);
+				mAtomY[atom] = mZoomRotationY + newDistance*Math.cos(newAngle);
 				}
 			}
 
@@ -3657,7 +3726,9 @@ public class Molecule implements Serializable {
 				mAtomFlags[atomDest] = mAtomFlags[atom];
 				mAtomQueryFeatures[atomDest] = mAtomQueryFeatures[atom];
 				mAtomMapNo[atomDest] = mAtomMapNo[atom];
-				mCoordinates[atomDest].set(mCoordinates[atom]);
+				mAtomX[atomDest] = mAtomX[atom];
+				mAtomY[atomDest] = mAtomY[atom];
+				mAtomZ[atomDest] = mAtomZ[atom];
 				if (mAtomList != null)
 					mAtomList[atomDest] = mAtomList[atom];
 				if (mAtomCustomLabel != null)
@@ -3694,8 +3765,8 @@ public class Molecule implements Serializable {
 			bondLength = getAverageBondLength();
 			}
 		else {
-			xdiff = mCoordinates[atom].x - mCoordinates[endAtm].x;
-			ydiff = mCoordinates[atom].y - mCoordinates[endAtm].y;
+			xdiff = mAtomX[atom] - mAtomX[endAtm];
+			ydiff = mAtomY[atom] - mAtomY[endAtm];
 			bondLength = Math.sqrt(xdiff * xdiff + ydiff * ydiff);
 			}
 
@@ -3703,21 +3774,21 @@ public class Molecule implements Serializable {
 		dblBnd = !(simpleGetValence(atom) == 3);
 
 		for (int step=1; step<bonds; step++) {
-			newx = mCoordinates[actlAtm].x + bondLength * Math.sin(actlAngle);
-			newy = mCoordinates[actlAtm].y + bondLength * Math.cos(actlAngle);
+			newx = mAtomX[actlAtm] + bondLength * Math.sin(actlAngle);
+			newy = mAtomY[actlAtm] + bondLength * Math.cos(actlAngle);
 			remoteAtm = -1;
 			for (int i=0; i<mAllAtoms; i++) {
-				if ((Math.abs(newx - mCoordinates[i].x) < 4)
-				 && (Math.abs(newy - mCoordinates[i].y) < 4)) {
+				if ((Math.abs(newx - mAtomX[i]) < 4)
+				 && (Math.abs(newy - mAtomY[i]) < 4)) {
 					remoteAtm = i;
 					break;
 					}
 				}
 			if (remoteAtm == -1) {
 				remoteAtm = addAtom(newx, newy);
-				mCoordinates[remoteAtm].x = newx;
-				mCoordinates[remoteAtm].y = newy;
-				mCoordinates[remoteAtm].z = 0;
+				mAtomX[remoteAtm] = newx;
+				mAtomY[remoteAtm] = newy;
+				mAtomZ[remoteAtm] = 0;
 				}
 			bnd = getBondNo(actlAtm,remoteAtm);
 			if (bnd == -1) {
@@ -3768,9 +3839,9 @@ public class Molecule implements Serializable {
 			stream.writeInt(mAtomMass[atom]);
 			stream.writeInt(mAtomFlags[atom] & ~cAtomFlagsHelper);
 			stream.writeInt(mAtomQueryFeatures[atom]);
-			stream.writeDouble(mCoordinates[atom].x);	// for compatibility with earlier double based coords
-			stream.writeDouble(mCoordinates[atom].y);
-			stream.writeDouble(mCoordinates[atom].z);
+			stream.writeDouble(mAtomX[atom]);	// for compatibility with earlier double based coords
+			stream.writeDouble(mAtomY[atom]);
+			stream.writeDouble(mAtomZ[atom]);
 			stream.writeInt(mAtomMapNo[atom]);
 
 			if (mAtomList != null && mAtomList[atom] != null) {
@@ -3817,7 +3888,9 @@ public class Molecule implements Serializable {
 			mAtomMass[atom] = stream.readInt();
 			mAtomFlags[atom] = stream.readInt();
 			mAtomQueryFeatures[atom] = stream.readInt();
-			mCoordinates[atom].set(stream.readDouble(), stream.readDouble(), stream.readDouble());
+			mAtomX[atom] = stream.readDouble();
+			mAtomY[atom] = stream.readDouble();
+			mAtomZ[atom] = stream.readDouble();
 			mAtomMapNo[atom] = stream.readInt();
 
 			int count = stream.readInt();
@@ -146,6 +146,9 @@ public class MolfileParser
 			if(mMol == null){
 				mMol = new StereoMolecule(natoms,nbonds);
 			}
+			else{
+				mMol.ensureCapacity(natoms,nbonds);
+			}
 			
 			mMol.setName(name);
 
@@ -506,14 +509,15 @@ public class MolfileParser
 
 	private void interpretV3CountLine(String line)
 	{
-		if(mMol == null){
-			if(line.startsWith("COUNTS")){
-				int index1 = 7;
-				int index2 = indexOfNextItem(line,indexOfWhiteSpace(line,7));
-				int natoms = Integer.parseInt(line.substring(index1,indexOfWhiteSpace(line,index1)));
-				int nbonds = Integer.parseInt(line.substring(index2,indexOfWhiteSpace(line,index2)));
+		if(line.startsWith("COUNTS")){
+			int index1 = 7;
+			int index2 = indexOfNextItem(line,indexOfWhiteSpace(line,7));
+			int natoms = Integer.parseInt(line.substring(index1,indexOfWhiteSpace(line,index1)));
+			int nbonds = Integer.parseInt(line.substring(index2,indexOfWhiteSpace(line,index2)));
+			if(mMol == null)
 				mMol = new StereoMolecule(natoms,nbonds);
-			}
+			else
+				mMol.ensureCapacity(natoms,nbonds);
 		}
 	}
 
@@ -98,4 +98,90 @@ public class PropertyCalculator {
 	public int getStereoCenterCount() {
 		return mMolecule.getStereoCenterCount();
 		}
+
+	/**
+	 * Calculates all properties of this calculator in one pass over the molecule's atoms.
+	 * The cLogP atom type of every atom is calculated only once and the solubility atom type
+	 * is derived from it. Polar atom types, donors and acceptors are determined in the same loop.
+	 * Like getLogP(), this method normalizes ambiguous bonds of the molecule first.
+	 * @return all properties
+	 */
+	public PropertySet getAllProperties() {
+		CLogPPredictor logPPredictor = new CLogPPredictor();
+		SolubilityPredictor logSPredictor = new SolubilityPredictor();
+		PolarSurfaceAreaPredictor psaPredictor = new PolarSurfaceAreaPredictor();
+
+		mMolecule.normalizeAmbiguousBonds();
+		mMolecule.ensureHelperArrays(Molecule.cHelperRings);
+
+		float logP = 0.0f;
+		float logS = SolubilityPredictor.cBaseValue;
+		int[] polarAtomTypeCount = new int[PolarSurfaceAreaPredictor.getPolarAtomTypeCount()+2];
+		int acceptorCount = 0;
+		int donorCount = 0;
+		for (int atom=0; atom<mMolecule.getAtoms(); atom++) {
+			try {
+				long atomType = AtomTypeCalculator.getAtomType(mMolecule, atom, CLogPPredictor.ATOM_TYPE_MODE);
+				logP += logPPredictor.getIncrement(atomType);
+				logS += logSPredictor.getIncrement(AtomTypeCalculator.removeAtomProperties(atomType,
+						AtomTypeCalculator.cPropertiesForCLogPCharges & ~AtomTypeCalculator.cPropertiesForSolubility));
+				}
+			catch (Exception e) {}	// unsupported atom type exceptions are tolerable
+
+			polarAtomTypeCount[psaPredictor.getPolarAtomType(mMolecule, atom)]++;
+
+			if (mMolecule.getAtomicNo(atom) == 7 || mMolecule.getAtomicNo(atom) == 8) {
+				acceptorCount++;
+				if (mMolecule.getAllHydrogens(atom) > 0)
+					donorCount++;
+				}
+			}
+
+		return new PropertySet(acceptorCount, donorCount, logP, logS, psaPredictor.assessPSA(polarAtomTypeCount),
+				mMolecule.getRotatableBondCount(), mMolecule.getStereoCenterCount());
+		}
+
+	public static class PropertySet {
+		private final int mAcceptorCount,mDonorCount,mRotatableBondCount,mStereoCenterCount;
+		private final float mLogP,mLogS,mPolarSurfaceArea;
+
+		private PropertySet(int acceptorCount, int donorCount, float logP, float logS, float polarSurfaceArea,
+							int rotatableBondCount, int stereoCenterCount) {
+			mAcceptorCount = acceptorCount;
+			mDonorCount = donorCount;
+			mLogP = logP;
+			mLogS = logS;
+			mPolarSurfaceArea = polarSurfaceArea;
+			mRotatableBondCount = rotatableBondCount;
+			mStereoCenterCount = stereoCenterCount;
+			}
+
+		public int getAcceptorCount() {
+			return mAcceptorCount;
+			}
+
+		public int getDonorCount() {
+			return mDonorCount;
+			}
+
+		public double getLogP() {
+			return mLogP;
+			}
+
+		public double getLogS() {
+			return mLogS;
+			}
+
+		public double getPolarSurfaceArea() {
+			return mPolarSurfaceArea;
+			}
+
+		public int getRotatableBondCount() {
+			return mRotatableBondCount;
+			}
+
+		public int getStereoCenterCount() {
+			return mStereoCenterCount;
+			}
+		}
 	}
@@ -34,6 +34,7 @@
 package com.actelion.research.chem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class RingCollection {
 	public static final int MAX_SMALL_RING_SIZE = 7;
@@ -60,6 +61,7 @@ public class RingCollection {
 	private boolean[] mIsAromatic;
 	private boolean[] mIsDelocalized;
 	private int mMaxSmallRingSize;
+	private int[] mFirstRingOfLowAtom,mNextRingOfLowAtom;	// ringNo+1 of rings starting with an atom; 0: none
 
 	/**
 	 * Generates the complete set of small rings, which don't contain metal atoms
@@ -92,32 +94,38 @@ public class RingCollection {
 
 		mAtomRingSize = new int[mMol.getAtoms()];
 		mBondRingSize = new int[mMol.getBonds()];
+		mFirstRingOfLowAtom = new int[mMol.getAtoms()];
+		mNextRingOfLowAtom = new int[16];
 
 		mMol.ensureHelperArrays(ExtendedMolecule.cHelperNeighbours);
 
 		boolean[] isConfirmedChainAtom = new boolean[mMol.getAtoms()];
 		boolean[] isConfirmedChainBond = new boolean[mMol.getBonds()];
 
-		boolean found;
-		do {	// detect atoms of side chains as non-ring-atoms
-			found = false;
-			for (int atom=0; atom<mMol.getAtoms(); atom++) {
-				if (!isConfirmedChainAtom[atom]) {
-					int potentialRingNeighbours = 0;
-					for (int i=0; i<mMol.getConnAtoms(atom); i++)
-						if (!isConfirmedChainAtom[mMol.getConnAtom(atom, i)])
-							potentialRingNeighbours++;
-	
-					if (potentialRingNeighbours < 2) {
-						isConfirmedChainAtom[atom] = true;
-						for (int i=0; i<mMol.getConnAtoms(atom); i++)
-							isConfirmedChainBond[mMol.getConnBond(atom, i)] = true;
-
-						found = true;
-						}
+		// detect atoms of side chains as non-ring-atoms by repeatedly peeling atoms with
+		// less than two potential ring neighbours; every atom enters the queue only once
+		int[] potentialRingNeighbours = new int[mMol.getAtoms()];
+		int[] chainAtom = new int[mMol.getAtoms()];
+		int chainAtomCount = 0;
+		for (int atom=0; atom<mMol.getAtoms(); atom++) {
+			potentialRingNeighbours[atom] = mMol.getConnAtoms(atom);
+			if (potentialRingNeighbours[atom] < 2) {
+				isConfirmedChainAtom[atom] = true;
+				chainAtom[chainAtomCount++] = atom;
+				}
+			}
+		for (int i=0; i<chainAtomCount; i++) {
+			int atom = chainAtom[i];
+			for (int j=0; j<mMol.getConnAtoms(atom); j++) {
+				isConfirmedChainBond[mMol.getConnBond(atom, j)] = true;
+				int connAtom = mMol.getConnAtom(atom, j);
+				if (!isConfirmedChainAtom[connAtom]
+				 && --potentialRingNeighbours[connAtom] < 2) {
+					isConfirmedChainAtom[connAtom] = true;
+					chainAtom[chainAtomCount++] = connAtom;
 					}
 				}
-			} while (found);
+			}
 
 				// generate graph of potential ring atoms to find ring closure bonds
 		int startAtom = 0;  // simply take the first potential ring atom as graph base
@@ -136,6 +144,7 @@ public class RingCollection {
 		int current = 0;
 		int highest = 0;
 		int noOfFragments = 1;
+		boolean[] isUsed = new boolean[mMol.getAtoms()];
 		while (current <= highest) {
 			for (int i=0; i<mMol.getConnAtoms(graphAtom[current]); i++) {
 				int candidate = mMol.getConnAtom(graphAtom[current], i);
@@ -143,7 +152,7 @@ public class RingCollection {
 					continue;
 
 				if (fragmentNo[candidate] != 0) {   // closure bond
-					addSmallRingsToSet(mMol.getConnBond(graphAtom[current], i), isConfirmedChainAtom);
+					addSmallRingsToSet(mMol.getConnBond(graphAtom[current], i), isConfirmedChainAtom, isUsed);
 					continue;
 					}
 
@@ -174,12 +183,24 @@ public class RingCollection {
 			determineAromaticity(mIsAromatic, mIsDelocalized, mHeteroPosition, false);
 			}
 
-		// find large rings by examining every potential ring bond
-		// which is not a member of a small ring
+		// find large rings by examining every ring bond, which is not a member of a small ring.
+		// Bridges between ring systems are no ring bonds. Bonds of small rings are skipped,
+		// unless the small ring set may be incomplete, because their smallest ring is known.
+		// Which bonds are small ring bonds must be determined before the loop, because
+		// every large ring found assigns a possibly too large size to its other bonds.
 		if ((mode & MODE_LARGE_RINGS) != 0) {
+			boolean[] isRingBond = findRingBonds(isConfirmedChainAtom);
+			boolean[] isSmallRingBond = new boolean[mMol.getBonds()];
+			if (mRingAtomSet.size() < MAX_SMALL_RING_COUNT)
+				for (int bond=0; bond<mMol.getBonds(); bond++)
+					isSmallRingBond[bond] = (mBondRingSize[bond] != 0);
+			int[] graphLevel = new int[mMol.getAtoms()];
+			int[] graphParent = new int[mMol.getAtoms()];
 			for (int bond=0; bond<mMol.getBonds(); bond++) {
-				if (!isConfirmedChainBond[bond] && mMol.getBondOrder(bond) != 0) {
-					int ringAtom[] = findSmallestRing(bond, isConfirmedChainAtom);
+				if (isRingBond[bond]
+				 && mMol.getBondOrder(bond) != 0
+				 && !isSmallRingBond[bond]) {
+					int ringAtom[] = findSmallestRing(bond, isConfirmedChainAtom, graphAtom, graphLevel, graphParent);
 					if (ringAtom != null)
 						updateRingSizes(ringAtom, getRingBonds(ringAtom));
 					}
@@ -188,13 +209,75 @@ public class RingCollection {
 		}
 
 
-	private int[] findSmallestRing(int bond, boolean[] isConfirmedChainAtom) {
-		// find smallest ring of given bond
+	/**
+	 * Determines all ring bonds in one depth first search, which locates all bridges,
+	 * i.e. bonds whose removal would disconnect the graph of potential ring atoms.
+	 * All other bonds between potential ring atoms are ring bonds.
+	 * @param isConfirmedChainAtom
+	 * @return
+	 */
+	private boolean[] findRingBonds(boolean[] isConfirmedChainAtom) {
+		boolean[] isRingBond = new boolean[mMol.getBonds()];
+		int[] order = new int[mMol.getAtoms()];	// 0: not visited yet
+		int[] low = new int[mMol.getAtoms()];
+		int[] parentBond = new int[mMol.getAtoms()];
+		int[] connIndex = new int[mMol.getAtoms()];
+		int[] stack = new int[mMol.getAtoms()];
+		int visitCount = 0;
+		for (int root=0; root<mMol.getAtoms(); root++) {
+			if (order[root] != 0 || isConfirmedChainAtom[root])
+				continue;
+
+			int top = 0;
+			stack[0] = root;
+			order[root] = low[root] = ++visitCount;
+			parentBond[root] = -1;
+			while (top >= 0) {
+				int atom = stack[top];
+				if (connIndex[atom] < mMol.getConnAtoms(atom)) {
+					int connAtom = mMol.getConnAtom(atom, connIndex[atom]);
+					int connBond = mMol.getConnBond(atom, connIndex[atom]);
+					connIndex[atom]++;
+					if (connBond == parentBond[atom] || isConfirmedChainAtom[connAtom])
+						continue;
+
+					if (order[connAtom] == 0) {
+						order[connAtom] = low[connAtom] = ++visitCount;
+						parentBond[connAtom] = connBond;
+						stack[++top] = connAtom;
+						}
+					else {	// back bond closing a ring
+						isRingBond[connBond] = true;
+						if (low[atom] > order[connAtom])
+							low[atom] = order[connAtom];
+						}
+					}
+				else {
+					top--;
+					if (top >= 0) {
+						int parent = stack[top];
+						if (low[parent] > low[atom])
+							low[parent] = low[atom];
+						if (low[atom] <= order[parent])	// not a bridge
+							isRingBond[parentBond[atom]] = true;
+						}
+					}
+				}
+			}
+
+		return isRingBond;
+		}
+
+
+	/**
+	 * Finds the smallest ring of the given bond by a breadth first search.
+	 * The passed arrays are reused between calls; graphLevel must contain 0 values only
+	 * and is reset before returning.
+	 */
+	private int[] findSmallestRing(int bond, boolean[] isConfirmedChainAtom,
+								   int[] graphAtom, int[] graphLevel, int[] graphParent) {
 		int atom1 = mMol.getBondAtom(0, bond);
 		int atom2 = mMol.getBondAtom(1, bond);
-		int graphAtom[] = new int[mMol.getAtoms()];
-		int graphLevel[] = new int[mMol.getAtoms()];
-		int graphParent[] = new int[mMol.getAtoms()];
 		graphAtom[0] = atom1;
 		graphAtom[1] = atom2;
 		graphLevel[atom1] = 1;
@@ -203,17 +286,18 @@ public class RingCollection {
 		graphParent[atom2] = atom1;
 		int current = 1;
 		int highest = 1;
-		while (current <= highest) {
+		int ringAtom[] = null;
+		while (current <= highest && ringAtom == null) {
 			for (int i=0; i<mMol.getConnAtoms(graphAtom[current]); i++) {
 				int candidate = mMol.getConnAtom(graphAtom[current], i);
 				if ((current > 1) && candidate == atom1) {
-					int ringAtom[] = new int[graphLevel[graphAtom[current]]];
+					ringAtom = new int[graphLevel[graphAtom[current]]];
 					int atom = graphAtom[current];
 					for (int j = 0; j < ringAtom.length; j++) {
 						ringAtom[j] = atom;
 						atom = graphParent[atom];
 						}
-					return ringAtom;
+					break;
 					}
 				if (graphLevel[candidate] == 0 && !isConfirmedChainAtom[candidate]) {
 					graphAtom[++highest] = candidate;
@@ -223,7 +307,11 @@ public class RingCollection {
 				}
 			current++;
 			}
-		return null;
+
+		for (int i=0; i<=highest; i++)
+			graphLevel[graphAtom[i]] = 0;
+
+		return ringAtom;
 		}
 
 
@@ -253,10 +341,14 @@ public class RingCollection {
 		}
 
 
-	private void addSmallRingsToSet(int closureBond, boolean[] isConfirmedChainAtom) {
+	/**
+	 * @param closureBond
+	 * @param isConfirmedChainAtom
+	 * @param isUsed reused array, which contains false values only and is reset before returning
+	 */
+	private void addSmallRingsToSet(int closureBond, boolean[] isConfirmedChainAtom, boolean[] isUsed) {
 		int[] graphAtom = new int[mMaxSmallRingSize];
 		int[] connIndex = new int[mMaxSmallRingSize];
-		boolean[] isUsed = new boolean[mMol.getAtoms()];
 
 		int atom1 = mMol.getBondAtom(0, closureBond);
 		int atom2 = mMol.getBondAtom(1, closureBond);
@@ -283,8 +375,11 @@ public class RingCollection {
 				addRingIfNew(graphAtom, current+1);
 
 				// if we have already such many rings, we only collect the smallest ring to avoid a combinatorial explosion
-				if (mRingAtomSet.size() >= MAX_SMALL_RING_COUNT)
+				if (mRingAtomSet.size() >= MAX_SMALL_RING_COUNT) {
+					for (int i=1; i<=current; i++)
+						isUsed[graphAtom[i]] = false;
 					return;
+					}
 
 				continue;
 				}
@@ -325,7 +420,8 @@ public class RingCollection {
 				}
 			}
 
-		for (int i=0; i<mRingAtomSet.size(); i++) {
+		// only rings starting with the same lowest atom may be equal
+		for (int i=mFirstRingOfLowAtom[sortedRing[0]]-1; i!=-1; i=mNextRingOfLowAtom[i]-1) {
 			int ringOfSet[] = mRingAtomSet.get(i);
 			if (ringOfSet.length != ringSize)
 				continue;
@@ -340,6 +436,12 @@ public class RingCollection {
 				return;
 			}
 
+		int ringNo = mRingAtomSet.size();
+		if (ringNo == mNextRingOfLowAtom.length)
+			mNextRingOfLowAtom = Arrays.copyOf(mNextRingOfLowAtom, 2*ringNo);
+		mNextRingOfLowAtom[ringNo] = mFirstRingOfLowAtom[sortedRing[0]];
+		mFirstRingOfLowAtom[sortedRing[0]] = ringNo+1;
+
 		mRingAtomSet.add(sortedRing);
 		int[] ringBond = getRingBonds(sortedRing);
 		mRingBondSet.add(ringBond);
@@ -33,6 +33,7 @@
 
 package com.actelion.research.chem;
 
+import com.actelion.research.calc.ThreadMaster;
 import com.actelion.research.util.IntArrayComparator;
 
 import java.util.*;
@@ -67,6 +68,9 @@ public class SSSearcher {
 	public final static int cCountModeOverlapping	= 3;
 	public final static int cCountModeRigorous		= 4;
 
+	// the ThreadMaster is asked every so many graph matching steps, whether to stop
+	private static final int THREAD_MASTER_CHECK_MASK = 0x3FF;
+
 	// default behaviour for unusual atom masses and atom charges is that
 	// - if no atom charge/mass is specified in the query then all charges/masses match
 	// - if an atom charge/mass is specified then this charge/mass must match for the atom to match
@@ -96,6 +100,18 @@ public class SSSearcher {
 	private boolean[] mFragmentGraphIsRingClosure;
 	private boolean[] mIsExcludeAtom;
 	private int[] mFragmentConnAtoms;	// in case of exclude atoms, these are not part of this
+
+	// Alternative fragment graph used for existence checks of fragments without exclude groups:
+	// sub fragment anchors and neighbours are ordered by selectivity, i.e. atoms that are expected
+	// to match few molecule atoms come first. Anchors with a defined atomicNo only try molecule atoms
+	// of the respective atomicNo bucket.
+	private int mPlanGraphSize;
+	private int[] mPlanGraphAtom;
+	private int[] mPlanGraphParentAtom;
+	private int[] mPlanGraphParentBond;
+	private boolean[] mPlanGraphIsRingClosure;
+	private int[] mPlanAnchorAtomicNo;
+	private boolean mPlanGraphValid;
 	private int[] mMatchTable;
 
 	// depending on the fragment count mode this may contain atom lists
@@ -104,10 +120,22 @@ public class SSSearcher {
 	private ArrayList<int[]> mMatchList;
 	private ArrayList<BridgeBond> mBridgeBondList;
 
+	// atomicNo,count pairs and ring atoms, which any molecule needs to contain a match
+	private int[] mFragmentRequiredAtomicNo;
+	private int mFragmentRequiredRingAtoms;
+	private int[] mMoleculeAtomicNoCount;
+	private int mMoleculeRingAtoms;
+	private boolean mIsMoleculeCompositionKnown;
+	private int[] mMoleculeAtomicNoStart;	// index of first atom of atomicNo in mMoleculeAtomsByAtomicNo
+	private int[] mMoleculeAtomsByAtomicNo;
+
 	private boolean mMoleculeFeaturesValid;
 	private boolean mFragmentFeaturesValid;
 	private int mRequiredHelperLevel;
 
+	private ThreadMaster mThreadMaster;
+	private boolean mIsCancelled;
+
 	/**
 	 * Instantiates a SSSearcher object for running sub-structure searches
 	 * with one or more sub-structure fragments on one or more molecules.
@@ -141,6 +169,25 @@ public class SSSearcher {
 		}
 
 
+	/**
+	 * Defines a ThreadMaster, which is regularly asked during graph matching, whether the
+	 * search shall be stopped. This allows cancelling searches, which take too long, e.g.
+	 * when counting all matches of highly symmetrical fragments in cCountModeRigorous.
+	 * @param threadMaster null or ThreadMaster, which may stop any subsequent search
+	 */
+	public void setThreadMaster(ThreadMaster threadMaster) {
+		mThreadMaster = threadMaster;
+		}
+
+
+	/**
+	 * @return whether the last search was stopped by the ThreadMaster before it was complete
+	 */
+	public boolean isCancelled() {
+		return mIsCancelled;
+		}
+
+
 	/**
 	 * Defines fragment and molecule before calling isFragmentInMolecule(...)
 	 * or findFragmentInMolecule(...).
@@ -212,6 +259,48 @@ public class SSSearcher {
 		}
 
 
+	/**
+	 * Prepares the fragment for the search with the given match mode and returns an
+	 * immutable representation of it, which includes the fragment graph and all atom
+	 * and bond query features. If the same fragment is searched again later, then
+	 * passing the compiled fragment to setFragment() avoids rebuilding these.
+	 * A compiled fragment can be shared by multiple SSSearchers even in different threads.
+	 * As a side effect the fragment becomes the current fragment of this SSSearcher.
+	 * @param fragment
+	 * @param matchMode cDefaultMatchMode or combination of cMatchAtomCharge, cMatchAtomMass, cMatchDBondToDelocalized, cMatchAromDBondToDelocalized
+	 * @return compiled fragment to be passed to setFragment(CompiledFragment)
+	 */
+	public CompiledFragment compileFragment(StereoMolecule fragment, int matchMode) {
+		setFragment(fragment);
+		if (mFragment != null) {
+			setupFragmentFeatures(matchMode);
+			buildFragmentGraph();
+			buildBridgeBondList();
+			setupFragmentComposition();
+			buildPlanGraph();
+			mFragmentFeaturesValid = true;
+			}
+		return new CompiledFragment(this);
+		}
+
+
+	/**
+	 * Defines a fragment, which was prepared with compileFragment(), to be used in
+	 * isFragmentInMolecule(...) or findFragmentInMolecule(...). The fragment graph and
+	 * features are taken from the compiled fragment as they are, i.e. the match mode
+	 * used for compiling is the one that applies to the fragment features.
+	 * @param fragment
+	 */
+	public void setFragment(CompiledFragment fragment) {
+		fragment.restore(this);
+
+		if (mFragment != null
+		 && mMoleculeFeaturesValid
+		 && mRequiredHelperLevel != Molecule.cHelperRings)
+			mMolecule.ensureHelperArrays(mRequiredHelperLevel);
+		}
+
+
 	/**
 	 * Build a graph of the query fragment(s) including ring closures as redundant nodes.
 	 * If we have exclude groups then these are added at the end of the graph.
@@ -280,6 +369,8 @@ public class SSSearcher {
 			}
 
 		mFragmentGraphSizeWithExcludeGroup = current;	// this is the real size of the graph
+
+		mPlanGraphValid = false;	// built on demand by the first existence check
 /*
 System.out.print("			"); for (int i=0; i<mFragmentGraphSize; i++) System.out.print(" "+(mFragmentGraphAtom[i]==-1?"-":Molecule.cAtomLabel[mFragment.getAtomicNo(mFragmentGraphAtom[i])])); System.out.println();
 System.out.print("  graphAtom:"); for (int i=0; i<mFragmentGraphSize; i++) System.out.print(" "+(mFragmentGraphAtom[i]==-1?"-":""+mFragmentGraphAtom[i])); System.out.println();
@@ -291,6 +382,122 @@ System.out.println();
 		}
 
 
+	/**
+	 * Builds a second graph of the query fragment(s) for fast existence checks. It differs from
+	 * the standard graph only in the order of the graph atoms, which is chosen such that most
+	 * selective atoms are matched first. This is not done for fragments with exclude groups.
+	 */
+	private void buildPlanGraph() {
+		mPlanGraphValid = true;
+		if (mFragmentExcludeAtoms != 0) {
+			mPlanGraphAtom = null;
+			return;
+			}
+
+		int atoms = mFragment.getAtoms();
+		int[] selectivity = new int[atoms];
+		for (int atom=0; atom<atoms; atom++)
+			selectivity[atom] = getAtomSelectivity(atom);
+
+		// atoms sorted by decreasing selectivity; lower atom index first in case of equal selectivity
+		int[] atomOrder = new int[atoms];
+		for (int i=0; i<atoms; i++)
+			atomOrder[i] = i;
+		for (int i=1; i<atoms; i++) {
+			int atom = atomOrder[i];
+			int j = i;
+			while (j > 0 && selectivity[atomOrder[j-1]] < selectivity[atom]) {
+				atomOrder[j] = atomOrder[j-1];
+				j--;
+				}
+			atomOrder[j] = atom;
+			}
+
+		int graphAllocation = mFragment.getBonds() + 12;    // 12 is max number of separated fragments within mFragment
+		mPlanGraphAtom = new int[graphAllocation];
+		mPlanGraphParentAtom = new int[graphAllocation];
+		mPlanGraphParentBond = new int[graphAllocation];
+		mPlanGraphIsRingClosure = new boolean[graphAllocation + 1];
+		mPlanAnchorAtomicNo = new int[graphAllocation];
+
+		boolean[] fragmentAtomUsed = new boolean[atoms];
+		boolean[] fragmentBondUsed = new boolean[mFragment.getBonds()];
+		int maxConnAtoms = 0;
+		for (int atom=0; atom<atoms; atom++)
+			maxConnAtoms = Math.max(maxConnAtoms, mFragment.getAllConnAtomsPlusMetalBonds(atom));
+		int[] connIndex = new int[maxConnAtoms];
+		int current = 0;
+		for (int rootIndex=0; rootIndex<atoms; rootIndex++) {
+			int root = atomOrder[rootIndex];
+			if (!fragmentAtomUsed[root]) {
+				mPlanGraphAtom[current] = root;
+				mPlanGraphParentBond[current] = -1;
+				mPlanGraphParentAtom[current] = -1;
+				mPlanAnchorAtomicNo[current] = ((mFragment.getAtomQueryFeatures(root) & Molecule.cAtomQFAny) == 0
+											 && mFragment.getAtomList(root) == null) ? mFragment.getAtomicNo(root) : -1;
+				fragmentAtomUsed[root] = true;
+				int highest = current;
+				while (current <= highest) {
+					int graphAtom = mPlanGraphAtom[current];
+
+					// neighbours in order of decreasing selectivity
+					int count = 0;
+					for (int i=0; i<mFragment.getAllConnAtomsPlusMetalBonds(graphAtom); i++) {
+						int candidate = mFragment.getConnAtom(graphAtom, i);
+						if (candidate < atoms) {
+							int j = count++;
+							while (j > 0 && selectivity[mFragment.getConnAtom(graphAtom, connIndex[j-1])] < selectivity[candidate]) {
+								connIndex[j] = connIndex[j-1];
+								j--;
+								}
+							connIndex[j] = i;
+							}
+						}
+
+					for (int k=0; k<count; k++) {
+						int i = connIndex[k];
+						int candidate = mFragment.getConnAtom(graphAtom, i);
+						int candidateBond = mFragment.getConnBond(graphAtom, i);
+						if (candidate != mPlanGraphParentAtom[current]
+						 && !fragmentBondUsed[candidateBond]	// if it is a ring closure make sure it is added only once
+						 && !mFragment.isBondBridge(candidateBond)) {	// don't consider bridge bonds at this state
+							mPlanGraphAtom[++highest] = candidate;
+							mPlanGraphParentAtom[highest] = graphAtom;
+							mPlanGraphParentBond[highest] = candidateBond;
+							fragmentBondUsed[candidateBond] = true;
+							if (fragmentAtomUsed[candidate])
+								mPlanGraphIsRingClosure[highest] = true;
+							else
+								fragmentAtomUsed[candidate] = true;
+							}
+						}
+					while (mPlanGraphIsRingClosure[++current]);
+					}
+				}
+			}
+		mPlanGraphSize = current;
+		}
+
+
+	/**
+	 * Estimates, how few molecule atoms typically match a fragment atom: hetero atoms before
+	 * carbon atoms and atom lists; charged and highly connected atoms before others.
+	 * @param atom fragment atom
+	 * @return selectivity; higher values are more selective
+	 */
+	private int getAtomSelectivity(int atom) {
+		int selectivity = 0;
+		if ((mFragment.getAtomQueryFeatures(atom) & Molecule.cAtomQFAny) == 0
+		 && mFragment.getAtomList(atom) == null) {
+			int atomicNo = mFragment.getAtomicNo(atom);
+			selectivity = (atomicNo == 6) ? 8 : (atomicNo == 7 || atomicNo == 8) ? 16 : 24;
+			}
+		if (mFragment.getAtomCharge(atom) != 0)
+			selectivity += 4;
+		return selectivity + Math.min(3, mFragmentConnAtoms[atom]);
+		}
+
+
 	/**
 	 * Considers the i-th neighbour of the current graph atom as potential next graph member to add. If<br>
 	 * - it is not equal to the parent of the current graph atom and<br>
@@ -395,6 +602,8 @@ System.out.println();
 	 * are counted and listed only once. If count mode is different from cCountModeExistance,
 	 * then an atom mapping from fragment to molecule is collected and can be retrieved with getMatchList().
 	 * If the query fragment does not contain atoms other than exclude group atoms, then no match is returned.
+	 * If a ThreadMaster was set and it stops the search, then the matches found so far are returned
+	 * and isCancelled() returns true.
 	 * @param countMode one of cCountModeExistance, cCountModeFirstMatch, cCountModeOverlapping, cCountModeRigorous
 	 * @param matchMode cDefaultMatchMode or combination of cMatchAtomCharge, cMatchAtomMass, cMatchDBondToDelocalized, cMatchAromDBondToDelocalized
 	 * @param atomExcluded defines atoms of molecule to be excluded from sub-structure matching
@@ -404,6 +613,7 @@ System.out.println();
 		mMatchList = new ArrayList<int[]>();
 		mSortedMatchSet.clear();
 		mExcludedMatchSet.clear();
+		mIsCancelled = false;
 
 		if (mMolecule == null
    		 || mFragment == null)
@@ -426,6 +636,9 @@ System.out.println();
 
 		setupAtomAndBondFeatures(matchMode);
 
+		if (!isCompositionCompatible())
+			return 0;
+
 		// atom usage mask in mMolecule
 		boolean[] atomUsed = new boolean[mMolecule.getAtoms()];
 		if (atomExcluded != null)
@@ -436,12 +649,27 @@ System.out.println();
 		mMatchTable = new int[mFragment.getAtoms()];
 		Arrays.fill(mMatchTable, -1);	// to mark exclude group atoms
 
+		// In existence mode without exclude groups the order of matches doesn't matter and we use
+		// the selectivity ordered graph, which usually finds a match or fails much earlier.
+		if (countMode == cCountModeExistance && !mPlanGraphValid)
+			buildPlanGraph();
+		boolean usePlan = (countMode == cCountModeExistance && mPlanGraphAtom != null);
+		int graphSize = usePlan ? mPlanGraphSize : mFragmentGraphSize;
+		int[] graphAtom = usePlan ? mPlanGraphAtom : mFragmentGraphAtom;
+		int[] graphParentAtom = usePlan ? mPlanGraphParentAtom : mFragmentGraphParentAtom;
+		int[] graphParentBond = usePlan ? mPlanGraphParentBond : mFragmentGraphParentBond;
+		boolean[] graphIsRingClosure = usePlan ? mPlanGraphIsRingClosure : mFragmentGraphIsRingClosure;
+		int[] anchorAtomicNo = (usePlan && mIsMoleculeCompositionKnown) ? mPlanAnchorAtomicNo : null;
+
 		int[] index = new int[mFragmentGraphSizeWithExcludeGroup];
 		Arrays.fill(index, -1);
 		// contains current molecule atom pointer for graph matching,
 		// - in case of sub fragment anchor atom: the current molecule atom index matched to the anchor
 		// - otherwise the current connAtom index of the parent atom in the matching graph
 
+		ThreadMaster threadMaster = mThreadMaster;
+		int stepCount = 0;
+
 		int current = 0;
 		while (true) {
 /*
@@ -450,8 +678,9 @@ System.out.print("		"); for (int i=0; i<current; i++) System.out.print("  "); Sy
 System.out.println();
 */
 
-			int maxIndex = (mFragmentGraphParentAtom[current] == -1) ? mMolecule.getAtoms()
-					: mMolecule.getAllConnAtomsPlusMetalBonds(mMatchTable[mFragmentGraphParentAtom[current]]);
+			int maxIndex = (graphParentAtom[current] != -1) ? mMolecule.getAllConnAtomsPlusMetalBonds(mMatchTable[graphParentAtom[current]])
+						 : (anchorAtomicNo == null || anchorAtomicNo[current] == -1) ? mMolecule.getAtoms()
+						 : mMoleculeAtomicNoCount[anchorAtomicNo[current]];
 
 			index[current]++;
 
@@ -459,46 +688,54 @@ System.out.println();
 				index[current] = -1;
 				if (current == 0)
 					break;
+				if (threadMaster != null
+				 && (++stepCount & THREAD_MASTER_CHECK_MASK) == 0
+				 && threadMaster.threadMustDie()) {
+					mIsCancelled = true;
+					break;
+					}
 				current--;
-				if (!mFragmentGraphIsRingClosure[current])
-					atomUsed[mMatchTable[mFragmentGraphAtom[current]]] = false;
+				if (!graphIsRingClosure[current])
+					atomUsed[mMatchTable[graphAtom[current]]] = false;
 				continue;
 				}
 
-			if (mFragmentGraphParentAtom[current] == -1) {	// if current graph atom is sub fragment anchor atom
-				if (!atomUsed[index[current]]) {
-					if (areAtomsSimilar(index[current], mFragmentGraphAtom[current])) {
-						mMatchTable[mFragmentGraphAtom[current]] = index[current];
-						atomUsed[index[current]] = true;
+			if (graphParentAtom[current] == -1) {	// if current graph atom is sub fragment anchor atom
+				int candidate = (anchorAtomicNo == null || anchorAtomicNo[current] == -1) ? index[current]
+							  : mMoleculeAtomsByAtomicNo[mMoleculeAtomicNoStart[anchorAtomicNo[current]] + index[current]];
+				if (!atomUsed[candidate]) {
+					if (areAtomsSimilar(candidate, graphAtom[current])) {
+						mMatchTable[graphAtom[current]] = candidate;
+						atomUsed[candidate] = true;
 						current++;
 						}
 					}
 				}
 			else {
 				// skip plain hydrogens
-				if (mMolecule.getConnAtom(mMatchTable[mFragmentGraphParentAtom[current]], index[current]) >= mMolecule.getAtoms())
+				if (mMolecule.getConnAtom(mMatchTable[graphParentAtom[current]], index[current]) >= mMolecule.getAtoms())
 					continue;
 
-				int candidate = mMolecule.getConnAtom(mMatchTable[mFragmentGraphParentAtom[current]], index[current]);
-				if (!mFragmentGraphIsRingClosure[current]) {	// current graph position is not an anchor
+				int candidate = mMolecule.getConnAtom(mMatchTable[graphParentAtom[current]], index[current]);
+				if (!graphIsRingClosure[current]) {	// current graph position is not an anchor
 					if (!atomUsed[candidate]) {
-						if (areAtomsSimilar(candidate, mFragmentGraphAtom[current])
-								&& areBondsSimilar(mMolecule.getConnBond(mMatchTable[mFragmentGraphParentAtom[current]], index[current]), mFragmentGraphParentBond[current])) {
+						if (areAtomsSimilar(candidate, graphAtom[current])
+								&& areBondsSimilar(mMolecule.getConnBond(mMatchTable[graphParentAtom[current]], index[current]), graphParentBond[current])) {
 							atomUsed[candidate] = true;
-							mMatchTable[mFragmentGraphAtom[current]] = candidate;
+							mMatchTable[graphAtom[current]] = candidate;
 							current++;
 							}
 						}
 					}
 				else {	// current graph position is ringClosure
-					if (candidate == mMatchTable[mFragmentGraphAtom[current]]
-							&& areBondsSimilar(mMolecule.getConnBond(mMatchTable[mFragmentGraphParentAtom[current]], index[current]), mFragmentGraphParentBond[current])) {
+					if (candidate == mMatchTable[graphAtom[current]]
+							&& areBondsSimilar(mMolecule.getConnBond(mMatchTable[graphParentAtom[current]], index[current]), graphParentBond[current])) {
 						current++;
 						}
 					}
 				}
 
-			if (current == mFragmentGraphSize) {
+			if (current == graphSize) {
 				if (doTHParitiesMatch(false)
 				 && doEZParitiesMatch(false)
 				 && doBridgeBondsMatch(atomUsed, false)) {
@@ -545,8 +782,8 @@ System.out.println();
 					}
 
 				current--;
-				if (!mFragmentGraphIsRingClosure[current])
-					atomUsed[mMatchTable[mFragmentGraphAtom[current]]] = false;
+				if (!graphIsRingClosure[current])
+					atomUsed[mMatchTable[graphAtom[current]]] = false;
 				}
 			}
 
@@ -1134,11 +1371,106 @@ System.out.println();
 
 			buildFragmentGraph();
 			buildBridgeBondList();
+			setupFragmentComposition();
 
 			mFragmentFeaturesValid = true;
 			}
 		}
 
+	/**
+	 * Determines how many atoms of which atomic numbers and how many ring atoms
+	 * any molecule must contain to possibly match the fragment. Atoms with atom
+	 * lists or any-atom query features don't impose any requirement. Ring atoms are
+	 * not considered, if the fragment contains exclude groups or bridge bonds.
+	 */
+	private void setupFragmentComposition() {
+		int[] count = new int[Molecule.cMaxAtomicNo+1];
+		int elements = 0;
+		mFragmentRequiredRingAtoms = 0;
+		for (int atom=0; atom<mFragment.getAtoms(); atom++) {
+			if (!mIsExcludeAtom[atom]) {
+				if ((mFragment.getAtomQueryFeatures(atom) & Molecule.cAtomQFAny) == 0
+				 && mFragment.getAtomList(atom) == null
+				 && count[mFragment.getAtomicNo(atom)]++ == 0)
+					elements++;
+				if (mFragment.isRingAtom(atom))
+					mFragmentRequiredRingAtoms++;
+				}
+			}
+
+		if (mFragmentExcludeAtoms != 0 || mBridgeBondList != null)
+			mFragmentRequiredRingAtoms = 0;
+
+		mFragmentRequiredAtomicNo = new int[2*elements];
+		int index = 0;
+		for (int atomicNo=0; atomicNo<count.length; atomicNo++) {
+			if (count[atomicNo] != 0) {
+				mFragmentRequiredAtomicNo[index++] = atomicNo;
+				mFragmentRequiredAtomicNo[index++] = count[atomicNo];
+				}
+			}
+		}
+
+	/**
+	 * Counts the molecule's atoms per atomic number and its ring atoms, which is used
+	 * to quickly reject fragments that cannot match. This is not done for molecules,
+	 * which are fragments themselves, because these may contain atom lists and other
+	 * query features. Ring atoms are not considered, if the molecule has metal bonds.
+	 */
+	private void setupMoleculeComposition() {
+		mIsMoleculeCompositionKnown = !mMolecule.isFragment();
+		if (!mIsMoleculeCompositionKnown)
+			return;
+
+		if (mMoleculeAtomicNoCount == null)
+			mMoleculeAtomicNoCount = new int[Molecule.cMaxAtomicNo+1];
+		else
+			Arrays.fill(mMoleculeAtomicNoCount, 0);
+
+		mMoleculeRingAtoms = 0;
+		boolean hasMetalBonds = false;
+		for (int atom=0; atom<mMolecule.getAtoms(); atom++) {
+			mMoleculeAtomicNoCount[mMolecule.getAtomicNo(atom)]++;
+			if (mMolecule.isRingAtom(atom))
+				mMoleculeRingAtoms++;
+			if (mMolecule.getAllConnAtomsPlusMetalBonds(atom) != mMolecule.getAllConnAtoms(atom))
+				hasMetalBonds = true;
+			}
+
+		if (hasMetalBonds)
+			mMoleculeRingAtoms = Integer.MAX_VALUE;
+
+		// molecule atoms sorted by atomicNo for quick access to candidates for fragment anchor atoms
+		if (mMoleculeAtomicNoStart == null)
+			mMoleculeAtomicNoStart = new int[Molecule.cMaxAtomicNo+1];
+		int start = 0;
+		for (int atomicNo=0; atomicNo<=Molecule.cMaxAtomicNo; atomicNo++) {
+			mMoleculeAtomicNoStart[atomicNo] = start;
+			start += mMoleculeAtomicNoCount[atomicNo];
+			}
+		mMoleculeAtomsByAtomicNo = new int[mMolecule.getAtoms()];
+		for (int atom=0; atom<mMolecule.getAtoms(); atom++) {
+			int atomicNo = mMolecule.getAtomicNo(atom);
+			mMoleculeAtomsByAtomicNo[mMoleculeAtomicNoStart[atomicNo]++] = atom;
+			}
+		for (int atomicNo=0; atomicNo<=Molecule.cMaxAtomicNo; atomicNo++)
+			mMoleculeAtomicNoStart[atomicNo] -= mMoleculeAtomicNoCount[atomicNo];
+		}
+
+	/**
+	 * @return false, if the molecule lacks atoms, which every match of the fragment would need
+	 */
+	private boolean isCompositionCompatible() {
+		if (!mIsMoleculeCompositionKnown)
+			return true;
+
+		for (int i=0; i<mFragmentRequiredAtomicNo.length; i+=2)
+			if (mMoleculeAtomicNoCount[mFragmentRequiredAtomicNo[i]] < mFragmentRequiredAtomicNo[i+1])
+				return false;
+
+		return mMoleculeRingAtoms >= mFragmentRequiredRingAtoms;
+		}
+
 	private void setupMoleculeFeatures(int matchMode) {
 		mMolecule.ensureHelperArrays(mRequiredHelperLevel);
 		int nTotalMoleculeAtoms = mMolecule.getAtoms();
@@ -1171,6 +1503,8 @@ System.out.println();
 					& (Molecule.cBondQFSimpleFeatures | Molecule.cBondQFBridge)
 					^ Molecule.cBondQFNarrowing;
 			// include cBondQFBridge features to make sure that bridge bonds in molecule are never matched directly
+
+		setupMoleculeComposition();
 			}
 
 	private void setupFragmentFeatures(int matchMode) {
@@ -1468,6 +1802,87 @@ System.out.println();
 		int atom1,atom2,minBridgeSize,maxBridgeSize;
 		}
 
+	/**
+	 * Immutable snapshot of a fragment prepared for graph matching, i.e. the fragment
+	 * graph, atom and bond features and the molecule composition required for a match.
+	 * Instances are created by SSSearcher.compileFragment().
+	 */
+	public static class CompiledFragment {
+		private final StereoMolecule mFragment;
+		private final int[] mAtomType,mAtomFeatures,mBondFeatures,mConnAtoms;
+		private final int mExcludeAtoms,mExcludeBonds,mGraphSize,mGraphSizeWithExcludeGroup;
+		private final int[] mGraphAtom,mGraphParentAtom,mGraphParentBond;
+		private final boolean[] mGraphIsRingClosure,mIsExcludeAtom;
+		private final ArrayList<BridgeBond> mBridgeBondList;
+		private final int[] mRequiredAtomicNo;
+		private final int mRequiredRingAtoms,mRequiredHelperLevel;
+		private final int mPlanGraphSize;
+		private final int[] mPlanGraphAtom,mPlanGraphParentAtom,mPlanGraphParentBond,mPlanAnchorAtomicNo;
+		private final boolean[] mPlanGraphIsRingClosure;
+		private final boolean mPlanGraphValid;
+
+		private CompiledFragment(SSSearcher searcher) {
+			mFragment = searcher.mFragment;
+			mAtomType = searcher.mFragmentAtomType;
+			mAtomFeatures = searcher.mFragmentAtomFeatures;
+			mBondFeatures = searcher.mFragmentBondFeatures;
+			mConnAtoms = searcher.mFragmentConnAtoms;
+			mExcludeAtoms = searcher.mFragmentExcludeAtoms;
+			mExcludeBonds = searcher.mFragmentExcludeBonds;
+			mGraphSize = searcher.mFragmentGraphSize;
+			mGraphSizeWithExcludeGroup = searcher.mFragmentGraphSizeWithExcludeGroup;
+			mGraphAtom = searcher.mFragmentGraphAtom;
+			mGraphParentAtom = searcher.mFragmentGraphParentAtom;
+			mGraphParentBond = searcher.mFragmentGraphParentBond;
+			mGraphIsRingClosure = searcher.mFragmentGraphIsRingClosure;
+			mIsExcludeAtom = searcher.mIsExcludeAtom;
+			mBridgeBondList = searcher.mBridgeBondList;
+			mRequiredAtomicNo = searcher.mFragmentRequiredAtomicNo;
+			mRequiredRingAtoms = searcher.mFragmentRequiredRingAtoms;
+			mRequiredHelperLevel = searcher.mRequiredHelperLevel;
+			mPlanGraphSize = searcher.mPlanGraphSize;
+			mPlanGraphAtom = searcher.mPlanGraphAtom;
+			mPlanGraphParentAtom = searcher.mPlanGraphParentAtom;
+			mPlanGraphParentBond = searcher.mPlanGraphParentBond;
+			mPlanGraphIsRingClosure = searcher.mPlanGraphIsRingClosure;
+			mPlanAnchorAtomicNo = searcher.mPlanAnchorAtomicNo;
+			mPlanGraphValid = searcher.mPlanGraphValid;
+			}
+
+		private void restore(SSSearcher searcher) {
+			searcher.mFragment = mFragment;
+			searcher.mFragmentAtomType = mAtomType;
+			searcher.mFragmentAtomFeatures = mAtomFeatures;
+			searcher.mFragmentBondFeatures = mBondFeatures;
+			searcher.mFragmentConnAtoms = mConnAtoms;
+			searcher.mFragmentExcludeAtoms = mExcludeAtoms;
+			searcher.mFragmentExcludeBonds = mExcludeBonds;
+			searcher.mFragmentGraphSize = mGraphSize;
+			searcher.mFragmentGraphSizeWithExcludeGroup = mGraphSizeWithExcludeGroup;
+			searcher.mFragmentGraphAtom = mGraphAtom;
+			searcher.mFragmentGraphParentAtom = mGraphParentAtom;
+			searcher.mFragmentGraphParentBond = mGraphParentBond;
+			searcher.mFragmentGraphIsRingClosure = mGraphIsRingClosure;
+			searcher.mIsExcludeAtom = mIsExcludeAtom;
+			searcher.mBridgeBondList = mBridgeBondList;
+			searcher.mFragmentRequiredAtomicNo = mRequiredAtomicNo;
+			searcher.mFragmentRequiredRingAtoms = mRequiredRingAtoms;
+			searcher.mRequiredHelperLevel = mRequiredHelperLevel;
+			searcher.mPlanGraphSize = mPlanGraphSize;
+			searcher.mPlanGraphAtom = mPlanGraphAtom;
+			searcher.mPlanGraphParentAtom = mPlanGraphParentAtom;
+			searcher.mPlanGraphParentBond = mPlanGraphParentBond;
+			searcher.mPlanGraphIsRingClosure = mPlanGraphIsRingClosure;
+			searcher.mPlanAnchorAtomicNo = mPlanAnchorAtomicNo;
+			searcher.mPlanGraphValid = mPlanGraphValid;
+			searcher.mFragmentFeaturesValid = true;
+			}
+
+		public StereoMolecule getFragment() {
+			return mFragment;
+			}
+		}
+
 	private static int[] copyOf(int[] original, int newLength) {
      int[] copy = new int[newLength];
      System.arraycopy(original, 0, copy, 0,
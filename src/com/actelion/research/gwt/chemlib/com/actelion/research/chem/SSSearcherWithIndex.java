@@ -34,6 +34,7 @@
 package com.actelion.research.chem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class SSSearcherWithIndex {
 	public static final String cIndexVersion = "1.2.1";
@@ -553,8 +554,11 @@ public class SSSearcherWithIndex {
 		"RG@DXMH" };
 
 	private static StereoMolecule[]  sKeyFragment;
+	private static SSSearcher.CompiledFragment[] sKeyCompiledFragment;
 	private SSSearcher			mSSSearcher;
-	private StereoMolecule		mMolecule,mFragment;
+	private StereoMolecule		mMolecule,mFragment,mSearchMolecule;
+	private IDCodeParser		mParser;
+	private boolean				mIsSearchMoleculeValid;
 	private int[]				mMoleculeIndex,mFragmentIndex;
 	private byte[]				mMoleculeIDCode,mFragmentIDCode;
 
@@ -564,12 +568,14 @@ public class SSSearcherWithIndex {
 
 	public SSSearcherWithIndex() {
 		mSSSearcher = new SSSearcher();
+		mParser = new IDCodeParser(false);
 		init();
 		}
 
 
 	public SSSearcherWithIndex(int matchMode) {
 		mSSSearcher = new SSSearcher(matchMode);
+		mParser = new IDCodeParser(false);
 		init();
 		}
 
@@ -597,7 +603,7 @@ public class SSSearcherWithIndex {
 	public void setFragment(byte[] idcode, int[] index) {
 		mFragmentIDCode = idcode;
 		if (index == null) {
-			mFragment = (new IDCodeParser(false)).getCompactMolecule(idcode);
+			mFragment = mParser.getCompactMolecule(idcode);
 			mFragmentIndex = createIndex(mFragment);
 			}
 		else {
@@ -609,6 +615,7 @@ public class SSSearcherWithIndex {
 
 	public void setMolecule(StereoMolecule molecule, int[] index) {
 		mMoleculeIDCode = null;
+		mIsSearchMoleculeValid = false;
 		mMolecule = molecule;
 		if (index == null)
 			mMoleculeIndex = createIndex(molecule);
@@ -624,8 +631,9 @@ public class SSSearcherWithIndex {
 
 	public void setMolecule(byte[] idcode, int[] index) {
 		mMoleculeIDCode = idcode;
+		mIsSearchMoleculeValid = false;
 		if (index == null) {
-			mMolecule = (new IDCodeParser(false)).getCompactMolecule(idcode);
+			mMolecule = mParser.getCompactMolecule(idcode);
 			mMoleculeIndex = createIndex(mMolecule);
 			}
 		else {
@@ -651,23 +659,42 @@ public class SSSearcherWithIndex {
 	 */
 	public StereoMolecule getMolecule() {
         if (mMolecule == null && mMoleculeIDCode != null)
-            mMolecule = (new IDCodeParser(false)).getCompactMolecule(mMoleculeIDCode);
+            mMolecule = mParser.getCompactMolecule(mMoleculeIDCode);
 
         return mMolecule;
 	    }
 
 
+	/**
+	 * Returns the molecule to be matched. If the molecule was passed as idcode and was not
+	 * constructed yet, then only its structure is decoded into one molecule object, which
+	 * is reused for all following molecules. This molecule never leaves this class.
+	 * @return
+	 */
+	private StereoMolecule getSearchMolecule() {
+		if (mMolecule != null)
+			return mMolecule;
+
+		if (!mIsSearchMoleculeValid) {
+			if (mSearchMolecule == null)
+				mSearchMolecule = new StereoMolecule();
+			mParser.parseStructure(mSearchMolecule, mMoleculeIDCode);
+			mIsSearchMoleculeValid = true;
+			}
+
+		return mSearchMolecule;
+		}
+
+
 	public boolean isFragmentInMolecule() {
 		for (int i=0; i<mMoleculeIndex.length; i++)
 			if ((mFragmentIndex[i] & ~mMoleculeIndex[i]) != 0)
 				return false;
 
-		if (mMolecule == null)
-			mMolecule = (new IDCodeParser(false)).getCompactMolecule(mMoleculeIDCode);
 		if (mFragment == null)
-			mFragment = (new IDCodeParser(false)).getCompactMolecule(mFragmentIDCode);
+			mFragment = mParser.getCompactMolecule(mFragmentIDCode);
 
-		mSSSearcher.setMolecule(mMolecule);
+		mSSSearcher.setMolecule(getSearchMolecule());
 		mSSSearcher.setFragment(mFragment);
 		return mSSSearcher.isFragmentInMolecule();
 		}
@@ -678,12 +705,10 @@ public class SSSearcherWithIndex {
 			if ((mFragmentIndex[i] & ~mMoleculeIndex[i]) != 0)
 				return 0;
 
-		if (mMolecule == null)
-			mMolecule = (new IDCodeParser(false)).getCompactMolecule(mMoleculeIDCode);
 		if (mFragment == null)
-			mFragment = (new IDCodeParser(false)).getCompactMolecule(mFragmentIDCode);
+			mFragment = mParser.getCompactMolecule(mFragmentIDCode);
 
-		mSSSearcher.setMolecule(mMolecule);
+		mSSSearcher.setMolecule(getSearchMolecule());
 		mSSSearcher.setFragment(mFragment);
 		return mSSSearcher.findFragmentInMolecule();
 		}
@@ -698,17 +723,84 @@ public class SSSearcherWithIndex {
 			if ((mFragmentIndex[i] & ~mMoleculeIndex[i]) != 0)
 				return 0;
 
-		if (mMolecule == null)
-			mMolecule = (new IDCodeParser(false)).getCompactMolecule(mMoleculeIDCode);
 		if (mFragment == null)
-			mFragment = (new IDCodeParser(false)).getCompactMolecule(mFragmentIDCode);
+			mFragment = mParser.getCompactMolecule(mFragmentIDCode);
 
-		mSSSearcher.setMolecule(mMolecule);
+		mSSSearcher.setMolecule(getSearchMolecule());
 		mSSSearcher.setFragment(mFragment);
 		return mSSSearcher.findFragmentInMolecule(countMode, matchMode, atomExcluded);
 		}
 
 
+	/**
+	 * Runs the substructure search of the current fragment on many molecules at once.
+	 * The index prefilter is applied in one loop over the packed index array and only
+	 * those molecules passing it are constructed from their idcodes and graph matched.
+	 * This avoids creating search objects and molecule copies for every record.
+	 * @param moleculeIndex packed molecule indexes with (getNoOfKeys()+31)/32 ints per molecule
+	 * @param moleculeIDCode idcodes of the molecules in the same order as the packed indexes
+	 * @param maxHits number of hits after which the search stops; 0 to find all hits
+	 * @return sorted indices of all molecules, which contain the fragment
+	 */
+	public int[] findFragmentInMolecules(int[] moleculeIndex, byte[][] moleculeIDCode, int maxHits) {
+		return findFragmentInMolecules(moleculeIndex, moleculeIDCode, null, maxHits);
+		}
+
+
+	/**
+	 * Runs the substructure search of the current fragment on many molecules at once.
+	 * The index prefilter is applied in one loop over the packed index array and only
+	 * those molecules passing it are constructed from their idcodes and graph matched.
+	 * @param moleculeIndex packed molecule indexes with (getNoOfKeys()+31)/32 ints per molecule
+	 * @param moleculeIDCode idcodes of the molecules in the same order as the packed indexes
+	 * @param maxHits number of hits after which the search stops; 0 to find all hits
+	 * @return sorted indices of all molecules, which contain the fragment
+	 */
+	public int[] findFragmentInMolecules(int[] moleculeIndex, String[] moleculeIDCode, int maxHits) {
+		return findFragmentInMolecules(moleculeIndex, null, moleculeIDCode, maxHits);
+		}
+
+
+	private int[] findFragmentInMolecules(int[] moleculeIndex, byte[][] idcodeBytes, String[] idcodeString, int maxHits) {
+		int moleculeCount = (idcodeBytes != null) ? idcodeBytes.length : idcodeString.length;
+		int indexLength = mFragmentIndex.length;
+		if (moleculeIndex.length < moleculeCount*indexLength)
+			throw new IllegalArgumentException("index array too short for "+moleculeCount+" molecules");
+
+		if (mFragment == null)
+			mFragment = mParser.getCompactMolecule(mFragmentIDCode);
+		mSSSearcher.setFragment(mFragment);
+
+		StereoMolecule molecule = new StereoMolecule();
+
+		int[] hit = new int[16];
+		int hitCount = 0;
+		for (int m=0, offset=0; m<moleculeCount; m++, offset+=indexLength) {
+			boolean isCandidate = true;
+			for (int i=0; i<indexLength; i++) {
+				if ((mFragmentIndex[i] & ~moleculeIndex[offset+i]) != 0) {
+					isCandidate = false;
+					break;
+					}
+				}
+			if (!isCandidate)
+				continue;
+
+			mParser.parseStructure(molecule, (idcodeBytes != null) ? idcodeBytes[m] : idcodeString[m].getBytes());
+			mSSSearcher.setMolecule(molecule);
+			if (mSSSearcher.isFragmentInMolecule()) {
+				if (hitCount == hit.length)
+					hit = Arrays.copyOf(hit, 2*hitCount);
+				hit[hitCount++] = m;
+				if (hitCount == maxHits)
+					break;
+				}
+			}
+
+		return Arrays.copyOf(hit, hitCount);
+		}
+
+
 	/**
 	 * If the match count mode is one of cCountModeFirstMatch, cCountModeOverlapping,
 	 * cCountModeRigorous then this method returns an arraylist of all counted matches,
@@ -731,7 +823,7 @@ public class SSSearcherWithIndex {
 		mol = removeExcludeGroups(mol);
 		mSSSearcher.setMolecule(mol);
 		for (int i=0; i<cKeyIDCode.length; i++) {
-			mSSSearcher.setFragment(sKeyFragment[i]);
+			mSSSearcher.setFragment(sKeyCompiledFragment[i]);
 			if (mSSSearcher.isFragmentInMolecule(SSSearcher.cIndexMatchMode))
 				index[i/32] |= (1 << (31-i%32));
 			}
@@ -838,19 +930,11 @@ public class SSSearcherWithIndex {
 		}
 
 	
+    /**
+     * Integer.bitCount() is a single instruction on the JVM and emulated in JavaScript.
+     */
     public static int bitCount(int x) {
-        int temp;
-
-        temp = 0x55555555;
-        x = (x & temp) + (x >>> 1 & temp);
-        temp = 0x33333333;
-        x = (x & temp) + (x >>> 2 & temp);
-        temp = 0x07070707;
-        x = (x & temp) + (x >>> 4 & temp);
-        temp = 0x000F000F;
-        x = (x & temp) + (x >>> 8 & temp);
-
-        return (x & 0x1F) + (x >>> 16);
+        return Integer.bitCount(x);
     	}
 
 
@@ -858,11 +942,15 @@ public class SSSearcherWithIndex {
 		synchronized(SSSearcherWithIndex.class) {
 		    if (sKeyFragment == null) {
 	    		IDCodeParser theParser = new IDCodeParser(false);
-	    		sKeyFragment = new StereoMolecule[cKeyIDCode.length];
+	    		SSSearcher searcher = new SSSearcher();
+	    		StereoMolecule[] keyFragment = new StereoMolecule[cKeyIDCode.length];
+	    		sKeyCompiledFragment = new SSSearcher.CompiledFragment[cKeyIDCode.length];
 	    		for (int i=0; i<cKeyIDCode.length; i++) {
-	    			sKeyFragment[i] = theParser.getCompactMolecule(cKeyIDCode[i]);
-	    			sKeyFragment[i].ensureHelperArrays(Molecule.cHelperNeighbours);
+	    			keyFragment[i] = theParser.getCompactMolecule(cKeyIDCode[i]);
+	    			keyFragment[i].ensureHelperArrays(Molecule.cHelperNeighbours);
+	    			sKeyCompiledFragment[i] = searcher.compileFragment(keyFragment[i], SSSearcher.cIndexMatchMode);
 	    			}
+	    		sKeyFragment = keyFragment;
 	    		}
 			}
 	    }
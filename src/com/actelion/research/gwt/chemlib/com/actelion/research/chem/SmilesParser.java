@@ -65,6 +65,7 @@ public class SmilesParser {
 	public void parse(StereoMolecule mol, byte[] smiles, boolean createCoordinates, boolean readStereoFeatures) throws Exception {
 		mMol = mol;
 		mMol.deleteMolecule();
+		ensureMoleculeCapacity(smiles);
 
 		TreeMap<Integer,THParity> parityMap = null;
 
@@ -473,6 +474,24 @@ public class SmilesParser {
 		}
 
 
+	/**
+	 * Sizes the molecule once before parsing. Every atom starts with a letter or '*' and every
+	 * bond either connects a new atom or closes a ring, which is marked by digits. Counting these
+	 * characters gives upper limits for the atom and bond counts.
+	 */
+	private void ensureMoleculeCapacity(byte[] smiles) {
+		int letters = 0;
+		int digits = 0;
+		for (byte b:smiles) {
+			if (Character.isLetter((char)b) || b == '*')
+				letters++;
+			else if (Character.isDigit((char)b))
+				digits++;
+			}
+		mMol.ensureCapacity(letters, letters+digits);
+		}
+
+
 	private void locateAromaticDoubleBonds() throws Exception {
 		mMol.ensureHelperArrays(Molecule.cHelperNeighbours);
 		mIsAromaticBond = new boolean[mMol.getBonds()];
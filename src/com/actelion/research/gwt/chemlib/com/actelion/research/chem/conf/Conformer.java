@@ -52,7 +52,7 @@ public class Conformer {
 		mMol = mol;
 		mCoordinates = new Coordinates[mol.getAllAtoms()];
 		for (int atom=0; atom<mol.getAllAtoms(); atom++)
-			mCoordinates[atom] = new Coordinates(mol.getCoordinates(atom));
+			mCoordinates[atom] = mol.copyCoordinates(atom);
 
 		mEnergy = Double.NaN;
 		}
@@ -200,7 +200,7 @@ public class Conformer {
 	 */
 	public void copyFrom(StereoMolecule mol) {
 		for (int atom=0; atom<mol.getAllAtoms(); atom++)
-			mCoordinates[atom].set(mol.getCoordinates(atom));
+			mCoordinates[atom].set(mol.getAtomX(atom), mol.getAtomY(atom), mol.getAtomZ(atom));
 		}
 
 	/**
@@ -209,7 +209,7 @@ public class Conformer {
 	 */
 	public void copyTo(StereoMolecule mol) {
 		for (int atom=0; atom<mol.getAllAtoms(); atom++)
-			mol.getCoordinates(atom).set(mCoordinates[atom]);
+			mol.setCoordinates(atom, mCoordinates[atom]);
 		}
 
 	/**
@@ -249,7 +249,7 @@ public class Conformer {
 		if (mol == null)
 			mol = mMol.getCompactCopy();
 		for (int atom=0; atom<mol.getAllAtoms(); atom++)
-			mol.getCoordinates(atom).set(mCoordinates[atom]);
+			mol.setCoordinates(atom, mCoordinates[atom]);
 		if (mName != null)
 			mol.setName(mName);
 		return mol;
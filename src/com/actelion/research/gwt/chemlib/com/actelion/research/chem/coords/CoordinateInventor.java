@@ -33,6 +33,7 @@
 
 package com.actelion.research.chem.coords;
 
+import com.actelion.research.calc.ThreadMaster;
 import com.actelion.research.chem.*;
 
 import java.util.*;
@@ -64,6 +65,8 @@ public class CoordinateInventor {
 	private int			mMode;
 	private List<InventorFragment> mFragmentList;
 	private List<InventorTemplate> mCustomTemplateList;
+	private ThreadMaster mThreadMaster;
+	private boolean		mIsCancelled;
 
 	private static synchronized void buildDefaultTemplateList() {
 		if (sDefaultTemplateList == null)
@@ -105,6 +108,25 @@ public class CoordinateInventor {
 		}
 
 
+	/**
+	 * Defines a ThreadMaster, which is asked during the collision optimization of invent(),
+	 * whether to stop. If it stops the optimization, then invent() still assigns coordinates
+	 * to all atoms, which reflect the configuration, but may contain overlapping atoms.
+	 * @param threadMaster null or ThreadMaster, which may cut the optimization short
+	 */
+	public void setThreadMaster(ThreadMaster threadMaster) {
+		mThreadMaster = threadMaster;
+		}
+
+
+	/**
+	 * @return whether the ThreadMaster stopped the optimization of the last invent() call
+	 */
+	public boolean isCancelled() {
+		return mIsCancelled;
+		}
+
+
 	/**
 	 * By providing a custom template list containing substructures with predefined atom
 	 * coordinates, any occurence of any of these substructures will receive the
@@ -162,6 +184,7 @@ public class CoordinateInventor {
 		mMol.ensureHelperArrays(Molecule.cHelperRings);
 
 		mFFP = ffp;
+		mIsCancelled = false;
 
 		mFragmentList = new ArrayList<InventorFragment>();
 		mAtomHandled = new boolean[mMol.getAllAtoms()];
@@ -1673,6 +1696,9 @@ public class CoordinateInventor {
 
 			int lastBond = -1;
 			for (int flip=0; flip<TOTAL_FLIPS && collisionList.size()!=0; flip++) {
+				if (mustStop())
+					break;
+
 				int collisionNo = mRandom.nextInt(collisionList.size());
 				int[] collidingAtom = collisionList.get(collisionNo);
 				int[] bondSequence = getShortestConnection(collidingAtom[0], collidingAtom[1]);
@@ -1732,6 +1758,9 @@ f.mAtomY[i] = mMol.getAtomY(f.mAtom[i]) / avbl;
 			int currentRank = 1;
 			int nextAvailableRank;
 			do {
+				if (mustStop())
+					break;
+
 				nextAvailableRank = 9999;
 				for (int i=0; i<f.size(); i++) {
 					int theRank = atomSymRank[f.mGlobalAtom[i]];
@@ -1746,6 +1775,13 @@ f.mAtomY[i] = mMol.getAtomY(f.mAtom[i]) / avbl;
 		}
 
 
+	private boolean mustStop() {
+		if (!mIsCancelled && mThreadMaster != null && mThreadMaster.threadMustDie())
+			mIsCancelled = true;
+		return mIsCancelled;
+		}
+
+
 	private int[] getShortestConnection(int atom1, int atom2) {
 		int graphAtom[] = new int[mMol.getAllAtoms()];
 		int graphBond[] = new int[mMol.getAllAtoms()];
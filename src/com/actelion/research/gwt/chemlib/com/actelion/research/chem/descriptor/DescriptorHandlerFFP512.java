@@ -40,6 +40,8 @@ public class DescriptorHandlerFFP512 extends AbstractDescriptorHandlerFP<StereoM
 	private static DescriptorHandlerFFP512 sDefaultInstance;
 	private static final int sIntCount = (SSSearcherWithIndex.getNoOfKeys() + 31) / 32;
 
+	private SSSearcherWithIndex mSearcher;	// only used by thread-safe copies
+
 	public static DescriptorHandlerFFP512 getDefaultInstance() {
 		synchronized(DescriptorHandlerFFP512.class) {
 			if (sDefaultInstance == null)
@@ -69,11 +71,18 @@ public class DescriptorHandlerFFP512 extends AbstractDescriptorHandlerFP<StereoM
 		}
 
 	public int[] createDescriptor(StereoMolecule mol) {
-		int[] descriptor = new SSSearcherWithIndex().createIndex(mol);
+		SSSearcherWithIndex searcher = (mSearcher != null) ? mSearcher : new SSSearcherWithIndex();
+		int[] descriptor = searcher.createIndex(mol);
 		return (descriptor == null) ? FAILED_OBJECT : descriptor;
 		}
-	
+
+	/**
+	 * Returns a new handler that reuses one SSSearcherWithIndex for all descriptors
+	 * it creates. The copy must therefore not be shared between threads.
+	 */
 	public DescriptorHandler<int[], StereoMolecule> getThreadSafeCopy() {
-		return this;
+		DescriptorHandlerFFP512 copy = new DescriptorHandlerFFP512();
+		copy.mSearcher = new SSSearcherWithIndex();
+		return copy;
 		}
 	}
@@ -38,9 +38,11 @@ import com.actelion.research.chem.Molecule;
 import com.actelion.research.chem.SSSearcherWithIndex;
 import com.actelion.research.chem.StereoMolecule;
 import com.actelion.research.util.BurtleHasher;
+import com.actelion.research.util.IntArrayComparator;
 import com.actelion.research.util.datamodel.IntVec;
 
 import java.util.Arrays;
+import java.util.TreeSet;
 
 public class DescriptorHandlerHashedCFp extends AbstractDescriptorHandlerFP<StereoMolecule> {
     private static final double CORRECTION_FACTOR = 0.6;
@@ -81,16 +83,24 @@ public class DescriptorHandlerHashedCFp extends AbstractDescriptorHandlerFP<Ster
 
         mol.ensureHelperArrays(Molecule.cHelperRings);
         StereoMolecule fragment = new StereoMolecule(mol.getAtoms(), mol.getBonds());
+        Canonizer canonizer = null;
 
         // byte[] descriptor = new byte[DESCRIPTOR_SIZE];
         int len = DESCRIPTOR_SIZE / Integer.SIZE;
         IntVec iv = new IntVec(len); 
 
+        // Spheres of different root atoms often cover the same atoms. Every distinct
+        // atom set needs to be canonicalized only once, because it always sets the same bit.
+        TreeSet<int[]> atomSetDone = new TreeSet<int[]>(new IntArrayComparator());
+        int[] atomBits = new int[(mol.getAtoms()+31)/32];
+
 		int[] atomList = new int[mol.getAtoms()];
         boolean[] atomMask = new boolean[mol.getAtoms()];
         for (int rootAtom=0; rootAtom<mol.getAtoms(); rootAtom++) {
-            if (rootAtom != 0)
+            if (rootAtom != 0) {
                 Arrays.fill(atomMask, false);
+                Arrays.fill(atomBits, 0);
+                }
 
             int min = 0;
             int max = 0;
@@ -98,6 +108,7 @@ public class DescriptorHandlerHashedCFp extends AbstractDescriptorHandlerFP<Ster
                 if (max == 0) {
                     atomList[0] = rootAtom;
                     atomMask[rootAtom] = true;
+                    atomBits[rootAtom >> 5] |= (1 << (rootAtom & 31));
                     max = 1;
                     }
                 else {
@@ -108,6 +119,7 @@ public class DescriptorHandlerHashedCFp extends AbstractDescriptorHandlerFP<Ster
                             int connAtom = mol.getConnAtom(atom, j);
                             if (!atomMask[connAtom]) {
                                 atomMask[connAtom] = true;
+                                atomBits[connAtom >> 5] |= (1 << (connAtom & 31));
                                 atomList[newMax++] = connAtom;
                                 }
                             }
@@ -116,10 +128,17 @@ public class DescriptorHandlerHashedCFp extends AbstractDescriptorHandlerFP<Ster
                     max = newMax;
                     }
 
+                if (!atomSetDone.add(atomBits.clone()))
+                    continue;
+
                 mol.copyMoleculeByAtoms(fragment, atomMask, true, null);
 
                 // take fragment as it is
-                String idcode = new Canonizer(fragment).getIDCode();
+                if (canonizer == null)
+                    canonizer = new Canonizer(fragment);
+                else
+                    canonizer.reset(fragment);
+                String idcode = canonizer.getIDCode();
                 int h = BurtleHasher.hashlittle(idcode, HASH_INIT);
                 h = (h & BurtleHasher.hashmask(HASH_BITS));
                 iv.setBit(h);
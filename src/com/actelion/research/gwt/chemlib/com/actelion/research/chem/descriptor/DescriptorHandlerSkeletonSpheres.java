@@ -37,8 +37,10 @@ import com.actelion.research.chem.Canonizer;
 import com.actelion.research.chem.Molecule;
 import com.actelion.research.chem.StereoMolecule;
 import com.actelion.research.util.BurtleHasher;
+import com.actelion.research.util.IntArrayComparator;
 
 import java.util.Arrays;
+import java.util.TreeMap;
 
 public class DescriptorHandlerSkeletonSpheres implements DescriptorHandler<byte[], StereoMolecule> {
     private static final double CORRECTION_FACTOR = 0.7;
@@ -78,15 +80,24 @@ public class DescriptorHandlerSkeletonSpheres implements DescriptorHandler<byte[
 
         mol.ensureHelperArrays(Molecule.cHelperRings);
         StereoMolecule fragment = new StereoMolecule(mol.getAtoms(), mol.getBonds());
+        Canonizer canonizer = null;
 
 		byte[] descriptor = new byte[DESCRIPTOR_SIZE];
 
+        // Spheres of different root atoms often cover the same atoms, e.g. if larger spheres
+        // reach the entire molecule. Hash values are therefore cached for every distinct atom
+        // set to canonicalize every sphere fragment only once. Values not calculated yet are -1.
+        TreeMap<int[],int[]> hashCache = new TreeMap<int[],int[]>(new IntArrayComparator());
+        int[] atomBits = new int[(mol.getAtoms()+31)/32];
+
 //System.out.println("descriptor skeleton spheres:");
         int[] atomList = new int[mol.getAtoms()];
         boolean[] atomMask = new boolean[mol.getAtoms()];
         for (int rootAtom=0; rootAtom<mol.getAtoms(); rootAtom++) {
-            if (rootAtom != 0)
+            if (rootAtom != 0) {
                 Arrays.fill(atomMask, false);
+                Arrays.fill(atomBits, 0);
+                }
 
             int min = 0;
             int max = 0;
@@ -95,6 +106,7 @@ public class DescriptorHandlerSkeletonSpheres implements DescriptorHandler<byte[
             	if (max == 0) {
                     atomList[0] = rootAtom;
                     atomMask[rootAtom] = true;
+                    atomBits[rootAtom >> 5] |= (1 << (rootAtom & 31));
                     max = 1;
             		}
             	else {
@@ -105,6 +117,7 @@ public class DescriptorHandlerSkeletonSpheres implements DescriptorHandler<byte[
 	                        int connAtom = mol.getConnAtom(atom, j);
 	                        if (!atomMask[connAtom]) {
 	                            atomMask[connAtom] = true;
+	                            atomBits[connAtom >> 5] |= (1 << (connAtom & 31));
 	                            atomList[newMax++] = connAtom;
 	                            }
 	                        }
@@ -113,28 +126,46 @@ public class DescriptorHandlerSkeletonSpheres implements DescriptorHandler<byte[
 	                max = newMax;
             		}
 
-                mol.copyMoleculeByAtoms(fragment, atomMask, true, null);
+                int[] hash = hashCache.get(atomBits);
+                if (hash == null) {
+                    hash = new int[] { -1, -1 };
+                    hashCache.put(atomBits.clone(), hash);
+                    }
 
                 // take fragment as it is
                 if (sphere < EXACT_SPHERE_COUNT) {
-                    String idcode = new Canonizer(fragment).getIDCode();
-                    int h = BurtleHasher.hashlittle(idcode, HASH_INIT);
-                    h = (h & BurtleHasher.hashmask(HASH_BITS));
-                    if (descriptor[h] < DescriptorEncoder.MAX_COUNT_VALUE)
-                    	descriptor[h]++;
-//System.out.println("atom:"+rootAtom+"\tfragment\tradius:"+sphere+"\thash:"+h+"\t"+idcode);
+                    if (hash[0] == -1) {
+                        mol.copyMoleculeByAtoms(fragment, atomMask, true, null);
+                        if (canonizer == null)
+                            canonizer = new Canonizer(fragment);
+                        else
+                            canonizer.reset(fragment);
+                        String idcode = canonizer.getIDCode();
+                        int h = BurtleHasher.hashlittle(idcode, HASH_INIT);
+                        hash[0] = (h & BurtleHasher.hashmask(HASH_BITS));
+//System.out.println("atom:"+rootAtom+"\tfragment\tradius:"+sphere+"\thash:"+hash[0]+"\t"+idcode);
+                        }
+                    if (descriptor[hash[0]] < DescriptorEncoder.MAX_COUNT_VALUE)
+                    	descriptor[hash[0]]++;
                     }
 
                 // take atomic no reduced fragment skeleton also
                 if (sphere < SKELETON_SPHERE_COUNT) {
-                    for (int atom=0; atom<fragment.getAllAtoms(); atom++)
-                        fragment.setAtomicNo(atom, 6);
-                    String idcode = new Canonizer(fragment).getIDCode();
-                    int h = BurtleHasher.hashlittle(idcode, HASH_INIT);
-                    h = (h & BurtleHasher.hashmask(HASH_BITS));
-                    if (descriptor[h] < DescriptorEncoder.MAX_COUNT_VALUE)
-                    	descriptor[h]++;
-//System.out.println("atom:"+rootAtom+"\tskeleton\tradius:"+sphere+"\thash:"+h+"\t"+idcode);
+                    if (hash[1] == -1) {
+                        mol.copyMoleculeByAtoms(fragment, atomMask, true, null);
+                        for (int atom=0; atom<fragment.getAllAtoms(); atom++)
+                            fragment.setAtomicNo(atom, 6);
+                        if (canonizer == null)
+                            canonizer = new Canonizer(fragment);
+                        else
+                            canonizer.reset(fragment);
+                        String idcode = canonizer.getIDCode();
+                        int h = BurtleHasher.hashlittle(idcode, HASH_INIT);
+                        hash[1] = (h & BurtleHasher.hashmask(HASH_BITS));
+//System.out.println("atom:"+rootAtom+"\tskeleton\tradius:"+sphere+"\thash:"+hash[1]+"\t"+idcode);
+                        }
+                    if (descriptor[hash[1]] < DescriptorEncoder.MAX_COUNT_VALUE)
+                    	descriptor[hash[1]]++;
                     }
                 }
             }
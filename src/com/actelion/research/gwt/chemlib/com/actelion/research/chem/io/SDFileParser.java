@@ -39,10 +39,11 @@ import com.actelion.research.chem.UniqueStringList;
 import com.actelion.research.io.BOMSkipper;
 
 import java.io.*;
+import java.util.Arrays;
 
 public class SDFileParser extends CompoundFileParser {
     private static final int DEFAULT_RECORDS_TO_INSPECT = 10240;
-    private static final String[] cIDFieldNames = { "Idorsia No", "Actelion No", "ID", "IDNUMBER", "COMPOUND_ID", "NAME", "COMPND" };
+    static final String[] cIDFieldNames = { "Idorsia No", "Actelion No", "ID", "IDNUMBER", "COMPOUND_ID", "NAME", "COMPND" };
 	public static final String cNewLineString = "\n";
 
 	private StringBuilder		mMolfileBuffer,mDataBuffer;
@@ -50,6 +51,18 @@ public class SDFileParser extends CompoundFileParser {
 	private String[]			mFieldName;
 	private String[]			mFieldData;
 	private int					mNoOfRecords,mIDFieldIndex;
+	private boolean				mDiscoverFieldNames;
+	private FieldNameListener	mFieldNameListener;
+
+	public interface FieldNameListener {
+		/**
+		 * Is called while reading records, whenever a record contains a field,
+		 * which did not occur in any previous record.
+		 * @param fieldName
+		 * @param fieldIndex index of the new field for getFieldData()
+		 */
+		void fieldNameAdded(String fieldName, int fieldIndex);
+		}
 
 	public SDFileParser(String fileName) {
 		this(fileName, null);
@@ -105,7 +118,29 @@ public class SDFileParser extends CompoundFileParser {
 		mMolfileBuffer = new StringBuilder(10240);
 		mDataBuffer = new StringBuilder(10240);
 		}
+
+	/**
+	 * Lets the parser collect field names while iterating through the records, which avoids
+	 * reading the file twice if field names are not known in advance. Must be called before
+	 * the first call of next(). Any new field name is appended to the field names passed to
+	 * the constructor, if any. getFieldNames() then returns the names of all fields found in
+	 * the records read so far without using up this parser.
+	 * @param listener null or listener to be notified about every new field name
+	 */
+	public void discoverFieldNames(FieldNameListener listener) {
+		mDiscoverFieldNames = true;
+		mFieldNameListener = listener;
+		if (mFieldName == null)
+			mFieldName = new String[0];
+		}
 	
+	/**
+	 * @return whether field names were passed to the constructor or are discovered while reading
+	 */
+	boolean hasFieldNames() {
+		return mFieldName != null;
+		}
+
 	private void extractAllFieldNames(int recordsToInspect) {
 	    int records = 0;
 //		TreeSet<String> fieldNameList = new TreeSet<String>(); Changed to keep the original order of field names. TLS 6Jan16
@@ -231,6 +266,9 @@ public class SDFileParser extends CompoundFileParser {
 								}
 							}
 
+						if (fieldIndex == -1 && mDiscoverFieldNames)
+							fieldIndex = addFieldName(fieldName);
+
 						// check whether field qualifies as compound identifier
 						if (mIDFieldIndex == -1) {
                             for (String idName:cIDFieldNames) {
@@ -258,6 +296,17 @@ public class SDFileParser extends CompoundFileParser {
 		}
 
 
+	private int addFieldName(String fieldName) {
+		int fieldIndex = mFieldName.length;
+		mFieldName = Arrays.copyOf(mFieldName, fieldIndex+1);
+		mFieldName[fieldIndex] = fieldName;
+		mFieldData = Arrays.copyOf(mFieldData, fieldIndex+1);
+		if (mFieldNameListener != null)
+			mFieldNameListener.fieldNameAdded(fieldName, fieldIndex);
+		return fieldIndex;
+		}
+
+
 	/**
 	 * @return the molecule of the current record (null in case of parsing error)
 	 */
@@ -308,7 +357,8 @@ public class SDFileParser extends CompoundFileParser {
 	 * to extract all field names and uses up this SDFileParser. In this case
 	 * one needs to instantiate a new SDFileParser to sequentially iterate
 	 * through the file/reader's records and supply the field name array to
-	 * the constructor.
+	 * the constructor. If discoverFieldNames() was called, then the names of all
+	 * fields of the records read so far are returned.
 	 * @return array of field names
 	 */
 	public String[] getFieldNames() {
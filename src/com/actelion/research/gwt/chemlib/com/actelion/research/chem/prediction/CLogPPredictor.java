@@ -36,14 +36,14 @@ package com.actelion.research.chem.prediction;
 import com.actelion.research.chem.AtomTypeCalculator;
 import com.actelion.research.chem.Molecule;
 import com.actelion.research.chem.StereoMolecule;
-import com.actelion.research.util.SortedList;
+import com.actelion.research.util.LongIndexMap;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.TreeMap;
 
 public class CLogPPredictor {
-	private static final int ATOM_TYPE_MODE = AtomTypeCalculator.cPropertiesForCLogPCharges;
+	public static final int ATOM_TYPE_MODE = AtomTypeCalculator.cPropertiesForCLogPCharges;
 
 	protected static final long[] ATOM_TYPE = {
 	           0x40002L,           0x40004L,           0x40802L,           0x40803L,
@@ -217,18 +217,9 @@ public class CLogPPredictor {
 	 -0.4067f, -0.1316f };
 	
 	public static final float cCLogPUnknown = -999f;
-	private static SortedList<Long> sSortedTypeList;
+	private static final LongIndexMap sTypeIndexMap = new LongIndexMap(ATOM_TYPE);
 
 	public CLogPPredictor() {
-		if (sSortedTypeList == null) {
-			synchronized(CLogPPredictor.class) {
-				if (sSortedTypeList == null) {
-					sSortedTypeList = new SortedList<Long>();
-					for (Long l:ATOM_TYPE)
-						sSortedTypeList.add(l);
-					}
-				}
-			}
 		}
 
 	/**
@@ -244,7 +235,7 @@ public class CLogPPredictor {
 
 		for (int atom=0; atom<mol.getAtoms(); atom++) {
 			try {
-				int index = sSortedTypeList.getIndex(AtomTypeCalculator.getAtomType(mol, atom, ATOM_TYPE_MODE));
+				int index = sTypeIndexMap.getIndex(AtomTypeCalculator.getAtomType(mol, atom, ATOM_TYPE_MODE));
 				if (index != -1)
 					cLogP += INCREMENT[index];
 				}
@@ -254,6 +245,15 @@ public class CLogPPredictor {
 		return cLogP;
 		}
 
+	/**
+	 * @param atomType atom type calculated by AtomTypeCalculator using ATOM_TYPE_MODE
+	 * @return cLogP increment of the atom type or 0.0, if there is none
+	 */
+	public float getIncrement(long atomType) {
+		int index = sTypeIndexMap.getIndex(atomType);
+		return (index == -1) ? 0.0f : INCREMENT[index];
+		}
+
 	/**
 	 * Normalizes ambiguous bonds and assigns cLogP increments to every atom
 	 * based on its enhanced atom type.
@@ -267,7 +267,7 @@ public class CLogPPredictor {
 
 		for (int atom=0; atom<mol.getAtoms(); atom++) {
 			try {
-				int index = sSortedTypeList.getIndex(AtomTypeCalculator.getAtomType(mol, atom, ATOM_TYPE_MODE));
+				int index = sTypeIndexMap.getIndex(AtomTypeCalculator.getAtomType(mol, atom, ATOM_TYPE_MODE));
 				if (index != -1)
 					increment[atom] = INCREMENT[index];
 			}
@@ -308,9 +308,9 @@ public class CLogPPredictor {
 				detail.add("Warning: "+errorCount + " atom type(s) could not be determined.", ParameterizedStringList.cStringTypeText);
 
 			for (Long type:countMap.keySet()) {
-				if (sSortedTypeList.contains(type))
+				if (sTypeIndexMap.contains(type))
 					detail.add(countMap.get(type) + " * "+
-							formatter.format(INCREMENT[sSortedTypeList.getIndex(type)]) + " AtomType: 0x" + Long.toHexString(type),ParameterizedStringList.cStringTypeText);
+							formatter.format(INCREMENT[sTypeIndexMap.getIndex(type)]) + " AtomType: 0x" + Long.toHexString(type),ParameterizedStringList.cStringTypeText);
 				else
 					detail.add("Warning: For atom type 0x"+Long.toHexString(type)+" ("+countMap.get(type)+" times found) is no increment available.", ParameterizedStringList.cStringTypeText);
 				}
@@ -0,0 +1,94 @@
+/*
+
+Copyright (c) 2015-2016, cheminfo
+
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of {{ project }} nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+
+package com.actelion.research.chem.prediction;
+
+import com.actelion.research.chem.IDCodeParser;
+import com.actelion.research.chem.SSSearcher;
+import com.actelion.research.chem.SSSearcherWithIndex;
+import com.actelion.research.chem.StereoMolecule;
+
+/**
+ * Immutable, parsed and compiled query fragment of a prediction table, which carries its
+ * FFP512 index for quick rejection before graph matching. It may be shared between threads.
+ * Fragments are matched using SSSearcher.cMatchAtomCharge.
+ */
+class IndexedFragment {
+	private final SSSearcher.CompiledFragment mFragment;
+	private final int[] mIndex;
+
+	protected IndexedFragment(String idcode) {
+		StereoMolecule fragment = new IDCodeParser(false).getCompactMolecule(idcode);
+		mIndex = new SSSearcherWithIndex().createIndex(fragment);
+		mFragment = new SSSearcher(SSSearcher.cMatchAtomCharge).compileFragment(fragment, SSSearcher.cMatchAtomCharge);
+		}
+
+
+	/**
+	 * Query features of a test molecule, which is a fragment itself, may match fragments
+	 * that the molecule's index doesn't cover. Thus, these are not screened by index.
+	 * @param testMolecule
+	 * @return FFP512 index of testMolecule or null, if testMolecule is a fragment
+	 */
+	protected static int[] createMoleculeIndex(StereoMolecule testMolecule) {
+		return testMolecule.isFragment() ? null : new SSSearcherWithIndex().createIndex(testMolecule);
+		}
+
+
+	/**
+	 * @param sss searcher created with SSSearcher.cMatchAtomCharge and with the test molecule already set
+	 * @param moleculeIndex index of the test molecule as created by createMoleculeIndex()
+	 * @return whether the test molecule contains this fragment
+	 */
+	protected boolean isFragmentInMolecule(SSSearcher sss, int[] moleculeIndex) {
+		if (!passesIndex(moleculeIndex))
+			return false;
+
+		sss.setFragment(mFragment);
+		return sss.isFragmentInMolecule();
+		}
+
+
+	/**
+	 * @param moleculeIndex index of the test molecule as created by createMoleculeIndex()
+	 * @return false, if the index proves that the test molecule doesn't contain this fragment
+	 */
+	protected boolean passesIndex(int[] moleculeIndex) {
+		if (moleculeIndex != null)
+			for (int i=0; i<moleculeIndex.length; i++)
+				if ((mIndex[i] & ~moleculeIndex[i]) != 0)
+					return false;
+
+		return true;
+		}
+	}
@@ -115,8 +115,17 @@ public class PolarSurfaceAreaPredictor {
 	 * @return
 	 */
 	public float assessPSA(StereoMolecule mol) {
-		int[] count = getPolarAtomTypeCounts(mol);
+		return assessPSA(getPolarAtomTypeCounts(mol));
+		}
+
 
+	/**
+	 * Calculates the topological polar surface area from polar atom-type counts,
+	 * which were determined by getPolarAtomTypeCounts() or getPolarAtomType().
+	 * @param count
+	 * @return
+	 */
+	public float assessPSA(int[] count) {
 		float psa = 0.0f;
 		for (int i=0; i<cTPSAIncrement.length; i++)
 			psa += count[i] * cTPSAIncrement[i];
@@ -164,7 +173,13 @@ public class PolarSurfaceAreaPredictor {
 		}
 
 
-	protected int getPolarAtomType(StereoMolecule mol, int atom) {
+	/**
+	 * Requires helper arrays of at least cHelperRings level.
+	 * @param mol
+	 * @param atom
+	 * @return index of the atom's polar atom type into an array of getPolarAtomTypeCount()+2 counts
+	 */
+	public int getPolarAtomType(StereoMolecule mol, int atom) {
 		switch (mol.getAtomicNo(atom)) {
 		case 7:
 			if (mol.isAromaticAtom(atom)) {
@@ -35,6 +35,7 @@ package com.actelion.research.chem.prediction;
 
 import com.actelion.research.chem.AtomTypeCalculator;
 import com.actelion.research.chem.StereoMolecule;
+import com.actelion.research.util.LongIndexMap;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -42,6 +43,7 @@ import java.text.NumberFormat;
 
 public class SolubilityPredictor {
 	public static final float cSolubilityUnknown = -999;
+	public static final float cBaseValue = -0.530f;
 
 	private static final float[] cIncrement = {
 	 -0.190f,  1.270f, -0.701f,  2.691f, -0.227f,  0.030f,  0.106f, -0.476f,
@@ -150,33 +152,37 @@ public class SolubilityPredictor {
    569003041100808L,   569003041104904L,   573126078629895L };
 
 
+	private static final LongIndexMap sTypeIndexMap = new LongIndexMap(cAtomType);
+
 	public SolubilityPredictor() {
 		}
 
 
 	public float assessSolubility(StereoMolecule mol) {
-		float logS = -0.530f;
+		float logS = cBaseValue;
 
 		for (int atom=0; atom<mol.getAtoms(); atom++) {
-			long type = -1;
 			try {
-				type = AtomTypeCalculator.getAtomType(mol, atom,
-											 AtomTypeCalculator.cPropertiesForSolubility);
+				logS += getIncrement(AtomTypeCalculator.getAtomType(mol, atom,
+											 AtomTypeCalculator.cPropertiesForSolubility));
 				}
 			catch (Exception e) {}
-
-			for (int i =0; i<cIncrement.length; i++) {
-				if (cAtomType[i] == type) {
-					logS += cIncrement[i];
-					break;
-					}
-				}
 			}
 
 		return logS;
 		}
 
 
+	/**
+	 * @param atomType atom type calculated by AtomTypeCalculator using cPropertiesForSolubility
+	 * @return solubility increment of the atom type or 0.0, if there is none
+	 */
+	public float getIncrement(long atomType) {
+		int index = sTypeIndexMap.getIndex(atomType);
+		return (index == -1) ? 0.0f : cIncrement[index];
+		}
+
+
 	public ParameterizedStringList getDetail(StereoMolecule mol) {
 		ParameterizedStringList detail = new ParameterizedStringList();
 		detail.add("Solubility values are estimated applying an atom-type based increment system.",
@@ -192,19 +198,13 @@ public class SolubilityPredictor {
 
 		if (mol != null) {
 			for (int atom=0; atom<mol.getAtoms(); atom++) {
-				long type = -1;
 				try {
-					type = AtomTypeCalculator.getAtomType(mol, atom,
-												 AtomTypeCalculator.cPropertiesForSolubility);
+					int index = sTypeIndexMap.getIndex(AtomTypeCalculator.getAtomType(mol, atom,
+												 AtomTypeCalculator.cPropertiesForSolubility));
+					if (index != -1)
+						count[index]++;
 					}
 				catch (Exception e) {}
-
-				for (int i =0; i<cIncrement.length; i++) {
-					if (cAtomType[i] == type) {
-						count[i]++;
-						break;
-						}
-					}
 				}
 			}
 		NumberFormat formatter = new DecimalFormat("#0.000");
@@ -33,6 +33,7 @@
 
 package com.actelion.research.chem.reaction;
 
+import com.actelion.research.calc.ThreadMaster;
 import com.actelion.research.chem.Canonizer;
 import com.actelion.research.chem.Molecule;
 import com.actelion.research.chem.StereoMolecule;
@@ -42,10 +43,30 @@ import java.util.Arrays;
 public class MoleculeAutoMapper  {
 
     AutoMapper mapper = null;
+    private DefaultMoleculeAutoMapper defaultMapper = null;
 
     public MoleculeAutoMapper(StereoMolecule mol)
     {
-        mapper = new DefaultMoleculeAutoMapper(mol);
+        defaultMapper = new DefaultMoleculeAutoMapper(mol);
+        mapper = defaultMapper;
+    }
+
+    /**
+     * Defines a ThreadMaster, which is asked during autoMap(), whether to stop.
+     * If it stops the mapping, then only part of the atoms receive mapping numbers.
+     * @param threadMaster null or ThreadMaster, which may stop the mapping
+     */
+    public void setThreadMaster(ThreadMaster threadMaster)
+    {
+        defaultMapper.setThreadMaster(threadMaster);
+    }
+
+    /**
+     * @return whether the ThreadMaster stopped the last autoMap() before it was complete
+     */
+    public boolean isCancelled()
+    {
+        return defaultMapper.isCancelled();
     }
 
 //    public MoleculeAutoMapper(AutoMapper mapper,StereoMolecule mol)
@@ -69,11 +90,27 @@ class DefaultMoleculeAutoMapper implements AutoMapper {
 	private int					mCurrentMapNo;
 	private int[]				mCounterAtom;
 	private boolean[]			mMapNoInUse,mMatchHandled;
+	private ThreadMaster		mThreadMaster;
+	private boolean				mIsCancelled;
 
 	public DefaultMoleculeAutoMapper(StereoMolecule mol) {
 		mMol = mol;
 		}
 
+	public void setThreadMaster(ThreadMaster threadMaster) {
+		mThreadMaster = threadMaster;
+		}
+
+	public boolean isCancelled() {
+		return mIsCancelled;
+		}
+
+	private boolean mustStop() {
+		if (!mIsCancelled && mThreadMaster != null && mThreadMaster.threadMustDie())
+			mIsCancelled = true;
+		return mIsCancelled;
+		}
+
 	public void autoMap() {
 		// Removes previously assigned auto-mapping numbers and recursively assigns
 		// new mapping numbers to all neighbors of manually assigned seed atoms.
@@ -85,6 +122,7 @@ class DefaultMoleculeAutoMapper implements AutoMapper {
         mMatchHandled = new boolean[mMol.getAtoms()+1];
 		mCounterAtom = new int[mMol.getAtoms()];
         mCurrentMapNo = 0;
+		mIsCancelled = false;
 
 		for (int atom=0; atom<mMol.getAtoms(); atom++) {
 			int mapNo = mMol.getAtomMapNo(atom);
@@ -116,10 +154,15 @@ class DefaultMoleculeAutoMapper implements AutoMapper {
 
 
 		matchFragments();
+		if (mustStop())
+			return;
 
-		mCanonizer = new Canonizer(mMol, Canonizer.CREATE_SYMMETRY_RANK);
+		mCanonizer = new Canonizer(mMol, Canonizer.CREATE_SYMMETRY_RANK, mThreadMaster);
 		boolean found;
 		do {
+			if (mustStop())
+				return;
+
 			found = false;
 			for (int atom1=0; atom1<mMol.getAtoms(); atom1++) {
 				int mapNo = mMol.getAtomMapNo(atom1);
@@ -176,7 +219,10 @@ class DefaultMoleculeAutoMapper implements AutoMapper {
 			}
 
 		for (int i=0; i<fragmentCount; i++) {
-			Canonizer canonizer = new Canonizer(fragment[i], Canonizer.ENCODE_ATOM_CUSTOM_LABELS);
+			if (mustStop())
+				return;
+
+			Canonizer canonizer = new Canonizer(fragment[i], Canonizer.ENCODE_ATOM_CUSTOM_LABELS, mThreadMaster);
 			spec[i].code = canonizer.getIDCode();
 			for (int a=0; a<fragment[i].getAtoms(); a++)
 				spec[i].rank[a] = canonizer.getFinalRank()[a];
@@ -0,0 +1,101 @@
+/*
+* Copyright (c) 1997 - 2016
+* Actelion Pharmaceuticals Ltd.
+* Gewerbestrasse 16
+* CH-4123 Allschwil, Switzerland
+*
+* All rights reserved.
+*
+* Redistribution and use in source and binary forms, with or without
+* modification, are permitted provided that the following conditions are met:
+*
+* 1. Redistributions of source code must retain the above copyright notice, this
+*    list of conditions and the following disclaimer.
+* 2. Redistributions in binary form must reproduce the above copyright notice,
+*    this list of conditions and the following disclaimer in the documentation
+*    and/or other materials provided with the distribution.
+* 3. Neither the name of the the copyright holder nor the
+*    names of its contributors may be used to endorse or promote products
+*    derived from this software without specific prior written permission.
+*
+* THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+* ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+* WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+* DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+* ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+* (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+* LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+* ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+* (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+* SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*
+*/
+
+
+package com.actelion.research.util;
+
+import java.util.Arrays;
+
+/**
+ * Immutable map from long keys to their position in the key array, e.g. from atom types
+ * to the index of their increment in an atom-type based increment system. The map uses
+ * open addressing with linear probing on primitive arrays, i.e. no key is boxed on lookup.
+ * It may be shared between threads.
+ */
+public class LongIndexMap {
+	private final long[] mKey;
+	private final int[] mIndex;
+	private final int mMask;
+
+	/**
+	 * Creates a map of all keys to their position in the array. If a key occurs multiple
+	 * times, then it is mapped to its first position.
+	 * @param key
+	 */
+	public LongIndexMap(long[] key) {
+		int size = 4;
+		while (size < 2 * key.length)	// keep the load factor below 0.5
+			size <<= 1;
+
+		mKey = new long[size];
+		mIndex = new int[size];
+		mMask = size - 1;
+		Arrays.fill(mIndex, -1);
+
+		for (int i=0; i<key.length; i++) {
+			int slot = hash(key[i]) & mMask;
+			while (mIndex[slot] != -1 && mKey[slot] != key[i])
+				slot = (slot + 1) & mMask;
+			if (mIndex[slot] == -1) {
+				mKey[slot] = key[i];
+				mIndex[slot] = i;
+				}
+			}
+		}
+
+	/**
+	 * @param key
+	 * @return position of key in the array passed to the constructor or -1, if key is not in the map
+	 */
+	public int getIndex(long key) {
+		int slot = hash(key) & mMask;
+		while (mIndex[slot] != -1) {
+			if (mKey[slot] == key)
+				return mIndex[slot];
+			slot = (slot + 1) & mMask;
+			}
+		return -1;
+		}
+
+	public boolean contains(long key) {
+		return getIndex(key) != -1;
+		}
+
+	private static int hash(long key) {
+		int h = (int)(key ^ (key >>> 32));
+		h ^= (h >>> 16);
+		h *= 0x85EBCA6B;
+		h ^= (h >>> 13);
+		return h;
+		}
+	}
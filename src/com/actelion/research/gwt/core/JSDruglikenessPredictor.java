@@ -1,6 +1,7 @@
 package com.actelion.research.gwt.core;
 
 import com.actelion.research.chem.prediction.DruglikenessPredictor;
+import com.actelion.research.chem.prediction.ParameterizedStringList;
 import com.actelion.research.gwt.minimal.JSMolecule;
 import com.google.gwt.core.client.JavaScriptObject;
 import jsinterop.annotations.*;
@@ -8,7 +9,10 @@ import jsinterop.annotations.*;
 @JsType(name = "DruglikenessPredictor")
 public class JSDruglikenessPredictor {
 	private static Services services = Services.getInstance();
+	private static ResultCache<Result> cache = new ResultCache<Result>();
+	private static int timeLimit = 0;
 	private DruglikenessPredictor predictor;
+	private ParameterizedStringList detail;
 
 	public static double DRUGLIKENESS_UNKNOWN = DruglikenessPredictor.cDruglikenessUnknown;
 
@@ -16,8 +20,53 @@ public class JSDruglikenessPredictor {
 		predictor = new DruglikenessPredictor();
 	}
 
+	/**
+	 * Limits the time of each druglikeness assessment. If an assessment takes longer,
+	 * then it is stopped and DRUGLIKENESS_UNKNOWN is returned.
+	 * @param milliseconds time limit per assessment, 0 for no limit or a negative value,
+	 *        which stops every assessment at once
+	 */
+	public static void setTimeLimit(int milliseconds) {
+		timeLimit = milliseconds;
+	}
+
+	/**
+	 * Enables caching of druglikeness values and their details by canonical idcode.
+	 * @param maxSize maximum number of cached molecules; 0 disables the cache
+	 */
+	public static void setCacheSize(int maxSize) {
+		cache.setMaxSize(maxSize);
+	}
+
+	public static double getCacheHitCount() {
+		return cache.getHitCount();
+	}
+
+	public static double getCacheMissCount() {
+		return cache.getMissCount();
+	}
+
+	public static void clearCache() {
+		cache.clear();
+	}
+
 	public double assessDruglikeness(JSMolecule molecule) {
-		return predictor.assessDruglikeness(molecule.getStereoMolecule(), services.getThreadMaster());
+		if (!cache.isEnabled()) {
+			detail = null;
+			return predictor.assessDruglikeness(molecule.getStereoMolecule(), services.getThreadMaster(timeLimit));
+		}
+
+		String idcode = cache.getKey(molecule.getStereoMolecule());
+		Result result = cache.get(idcode);
+		if (result == null) {
+			double druglikeness = predictor.assessDruglikeness(molecule.getStereoMolecule(), services.getThreadMaster(timeLimit));
+			result = new Result(druglikeness, predictor.getDetail());
+			if (druglikeness != DruglikenessPredictor.cDruglikenessUnknown) {
+				cache.put(idcode, result);
+			}
+		}
+		detail = result.detail;
+		return result.druglikeness;
 	}
 
 	public String getDruglikenessString(JSMolecule molecule) {
@@ -25,6 +74,16 @@ public class JSDruglikenessPredictor {
 	}
 
 	public JavaScriptObject getDetail() {
-   		return Util.convertParameterizedStringList(predictor.getDetail());
+   		return Util.convertParameterizedStringList(detail != null ? detail : predictor.getDetail());
     }
+
+	private static class Result {
+		private final double druglikeness;
+		private final ParameterizedStringList detail;
+
+		private Result(double druglikeness, ParameterizedStringList detail) {
+			this.druglikeness = druglikeness;
+			this.detail = detail;
+		}
+	}
 }
@@ -1,33 +1,77 @@
 package com.actelion.research.gwt.core;
 
 import com.actelion.research.chem.PropertyCalculator;
+import com.actelion.research.chem.StereoMolecule;
 import com.actelion.research.gwt.minimal.JSMolecule;
 import com.google.gwt.core.client.JavaScriptObject;
 import jsinterop.annotations.*;
 
 @JsType(name = "MoleculeProperties")
 public class JSMoleculeProperties extends PropertyCalculator {
+	private static ResultCache<PropertySet> cache = new ResultCache<PropertySet>();
+	private StereoMolecule molecule;
+	private PropertySet properties;
 
 	public JSMoleculeProperties(JSMolecule mol) {
 		super(mol.getStereoMolecule());
+		molecule = mol.getStereoMolecule();
+	}
+
+	/**
+	 * Enables caching of all properties by canonical idcode. With an enabled cache,
+	 * all properties of a molecule are calculated when the first one is requested.
+	 * @param maxSize maximum number of cached molecules; 0 disables the cache
+	 */
+	public static void setCacheSize(int maxSize) {
+		cache.setMaxSize(maxSize);
+	}
+
+	public static double getCacheHitCount() {
+		return cache.getHitCount();
+	}
+
+	public static double getCacheMissCount() {
+		return cache.getMissCount();
+	}
+
+	public static void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * @return cached or newly calculated and cached properties; null if the cache is disabled
+	 */
+	private PropertySet getCachedProperties() {
+		if (properties == null && cache.isEnabled()) {
+			String idcode = cache.getKey(molecule);
+			properties = cache.get(idcode);
+			if (properties == null) {
+				properties = getAllProperties();
+				cache.put(idcode, properties);
+			}
+		}
+		return properties;
 	}
 	
 	@Override
 	@JsProperty
 	public int getAcceptorCount() {
-		return super.getAcceptorCount();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getAcceptorCount() : super.getAcceptorCount();
 	}
 	
 	@Override
 	@JsProperty
 	public int getDonorCount() {
-		return super.getDonorCount();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getDonorCount() : super.getDonorCount();
 	}
 	
 	@Override
 	@JsProperty
 	public double getLogP() {
-		return super.getLogP();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getLogP() : super.getLogP();
 	}
 
 	@JsProperty
@@ -38,7 +82,8 @@ public class JSMoleculeProperties extends PropertyCalculator {
 	@Override
 	@JsProperty
 	public double getLogS() {
-		return super.getLogS();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getLogS() : super.getLogS();
 	}
 
 	@JsProperty
@@ -49,7 +94,8 @@ public class JSMoleculeProperties extends PropertyCalculator {
 	@Override
 	@JsProperty
 	public double getPolarSurfaceArea() {
-		return super.getPolarSurfaceArea();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getPolarSurfaceArea() : super.getPolarSurfaceArea();
 	}
 
 	@JsProperty
@@ -60,13 +106,15 @@ public class JSMoleculeProperties extends PropertyCalculator {
 	@Override
 	@JsProperty
 	public int getRotatableBondCount() {
-		return super.getRotatableBondCount();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getRotatableBondCount() : super.getRotatableBondCount();
 	}
 	
 	@Override
 	@JsProperty
 	public int getStereoCenterCount() {
-		return super.getStereoCenterCount();
+		PropertySet cached = getCachedProperties();
+		return (cached != null) ? cached.getStereoCenterCount() : super.getStereoCenterCount();
 	}
 
 }
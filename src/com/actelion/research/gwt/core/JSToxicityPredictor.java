@@ -8,6 +8,8 @@ import jsinterop.annotations.*;
 @JsType(name = "ToxicityPredictor")
 public class JSToxicityPredictor {
     private static Services services = Services.getInstance();
+    private static ResultCache<Integer> cache = new ResultCache<Integer>();
+    private static int timeLimit = 0;
     private ToxicityPredictor predictor;
 
     public static int RISK_UNKNOWN = ToxicityPredictor.cUnknownRisk;
@@ -27,8 +29,50 @@ public class JSToxicityPredictor {
         predictor = new ToxicityPredictor();
     }
 
+    /**
+     * Limits the time of each risk assessment. If an assessment takes longer,
+     * then it is stopped and RISK_UNKNOWN is returned.
+     * @param milliseconds time limit per assessment, 0 for no limit or a negative value,
+     *        which stops every assessment at once
+     */
+    public static void setTimeLimit(int milliseconds) {
+        timeLimit = milliseconds;
+    }
+
+    /**
+     * Enables caching of risk assessments by canonical idcode and risk type.
+     * @param maxSize maximum number of cached assessments; 0 disables the cache
+     */
+    public static void setCacheSize(int maxSize) {
+        cache.setMaxSize(maxSize);
+    }
+
+    public static double getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public static double getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public static void clearCache() {
+        cache.clear();
+    }
+
     public int assessRisk(JSMolecule molecule, int riskType) {
-        return predictor.assessRisk(molecule.getStereoMolecule(), riskType, services.getThreadMaster());
+        if (!cache.isEnabled()) {
+            return predictor.assessRisk(molecule.getStereoMolecule(), riskType, services.getThreadMaster(timeLimit));
+        }
+
+        String key = cache.getKey(molecule.getStereoMolecule()) + " " + riskType;
+        Integer risk = cache.get(key);
+        if (risk == null) {
+            risk = predictor.assessRisk(molecule.getStereoMolecule(), riskType, services.getThreadMaster(timeLimit));
+            if (risk != ToxicityPredictor.cUnknownRisk) {
+                cache.put(key, risk);
+            }
+        }
+        return risk;
     }
 
     public JavaScriptObject getDetail(JSMolecule molecule, int riskType) {
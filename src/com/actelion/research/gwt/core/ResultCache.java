@@ -0,0 +1,90 @@
+package com.actelion.research.gwt.core;
+
+import com.actelion.research.chem.Canonizer;
+import com.actelion.research.chem.StereoMolecule;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of calculation results, keyed by the canonical idcode of the molecule.
+ * When the cache is full, the least recently used result is dropped. Caching is disabled
+ * until a maximum size is set.
+ */
+class ResultCache<T> {
+	private LinkedHashMap<String,T> map = null;
+	private int maxSize = 0;
+	private double hitCount = 0;
+	private double missCount = 0;
+
+	/**
+	 * @param maxSize maximum number of cached results; 0 disables and clears the cache
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		if (this.maxSize == 0) {
+			map = null;
+		} else if (map == null) {
+			map = new LinkedHashMap<String,T>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String,T> eldest) {
+					return size() > ResultCache.this.maxSize;
+				}
+			};
+		} else {
+			while (map.size() > this.maxSize) {
+				map.remove(map.keySet().iterator().next());
+			}
+		}
+	}
+
+	public boolean isEnabled() {
+		return map != null;
+	}
+
+	public String getKey(StereoMolecule mol) {
+		return new Canonizer(mol).getIDCode();
+	}
+
+	/**
+	 * Looks up a cached result and counts the lookup as hit or miss.
+	 * @param key canonical idcode as created by getKey()
+	 * @return cached result or null
+	 */
+	public T get(String key) {
+		T result = (map == null) ? null : map.get(key);
+		if (result != null) {
+			hitCount++;
+		} else {
+			missCount++;
+		}
+		return result;
+	}
+
+	public void put(String key, T result) {
+		if (map != null) {
+			map.put(key, result);
+		}
+	}
+
+	public double getHitCount() {
+		return hitCount;
+	}
+
+	public double getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Removes all cached results and resets the hit and miss counters.
+	 */
+	public void clear() {
+		if (map != null) {
+			map.clear();
+		}
+		hitCount = 0;
+		missCount = 0;
+	}
+}
@@ -3,6 +3,7 @@ package com.actelion.research.gwt.core;
 import com.actelion.research.chem.prediction.ToxicityPredictor;
 import com.actelion.research.chem.prediction.DruglikenessPredictor;
 import com.actelion.research.calc.ThreadMaster;
+import com.actelion.research.calc.TimeLimitThreadMaster;
 
 public class Services {
 
@@ -11,6 +12,7 @@ public class Services {
 	private DruglikenessPredictor druglikenessPredictor = null;
 	private ToxicityPredictor toxicityPredictor = null;
 	private ThreadMaster threadMaster = null;
+	private ThreadMaster stoppedThreadMaster = new StoppedThreadMaster();
 	
 	private Services() {}
 	
@@ -42,10 +44,27 @@ public class Services {
 		return threadMaster;
 	}
 
+	/**
+	 * @param timeLimit time budget in milliseconds, 0 for no limit or a negative value to stop at once
+	 * @return ThreadMaster, which stops a calculation when timeLimit has passed after this call
+	 */
+	public ThreadMaster getThreadMaster(int timeLimit) {
+		if (timeLimit < 0) {
+			return stoppedThreadMaster;
+		}
+		return (timeLimit == 0) ? getThreadMaster() : new TimeLimitThreadMaster(timeLimit);
+	}
+
 	private class CustomThreadMaster implements ThreadMaster {
 		public boolean threadMustDie() {
 			return false;
 		}
 	}
+
+	private static class StoppedThreadMaster implements ThreadMaster {
+		public boolean threadMustDie() {
+			return true;
+		}
+	}
 	
 }
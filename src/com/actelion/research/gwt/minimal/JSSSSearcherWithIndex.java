@@ -28,6 +28,10 @@ public class JSSSSearcherWithIndex {
 		return this.searcher.isFragmentInMolecule();
 	}
 	
+	public int[] findFragmentInMolecules(int[] indexes, String[] idcodes, int maxHits) {
+		return this.searcher.findFragmentInMolecules(indexes, idcodes, maxHits);
+	}
+
 	public int[] createIndex(JSMolecule molecule) {
 		return searcher.createIndex(molecule.getStereoMolecule());
 	}
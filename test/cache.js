@@ -0,0 +1,134 @@
+'use strict';
+
+const OCL = require('..');
+const Molecule = OCL.Molecule;
+const MoleculeProperties = OCL.MoleculeProperties;
+const ToxicityPredictor = OCL.ToxicityPredictor;
+const DruglikenessPredictor = OCL.DruglikenessPredictor;
+
+describe('Result caches', function () {
+
+    afterEach(function () {
+        MoleculeProperties.setCacheSize(0);
+        MoleculeProperties.clearCache();
+        ToxicityPredictor.setCacheSize(0);
+        ToxicityPredictor.clearCache();
+        DruglikenessPredictor.setCacheSize(0);
+        DruglikenessPredictor.clearCache();
+    });
+
+    it('should be disabled by default', function () {
+        new MoleculeProperties(Molecule.fromSmiles('CCO')).logP.should.be.a.Number();
+        MoleculeProperties.getCacheHitCount().should.equal(0);
+        MoleculeProperties.getCacheMissCount().should.equal(0);
+    });
+
+    it('should count misses and hits by canonical structure', function () {
+        MoleculeProperties.setCacheSize(10);
+        const first = new MoleculeProperties(Molecule.fromSmiles('OCC'));
+        const logP = first.logP;
+        MoleculeProperties.getCacheMissCount().should.equal(1);
+        const second = new MoleculeProperties(Molecule.fromSmiles('CCO'));
+        second.logP.should.equal(logP);
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+        second.polarSurfaceArea.should.equal(first.polarSurfaceArea);
+        second.donorCount.should.equal(first.donorCount);
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+    });
+
+    it('should not calculate or look up anything before a property is read', function () {
+        MoleculeProperties.setCacheSize(10);
+        const mol = Molecule.fromSmiles('CC(=O)Nc1ccc(O)cc1');
+        const idcode = mol.getIDCode();
+        const properties = new MoleculeProperties(mol);
+        MoleculeProperties.getCacheMissCount().should.equal(0);
+        mol.getIDCode().should.equal(idcode);
+        properties.acceptorCount.should.be.a.Number();
+        MoleculeProperties.getCacheMissCount().should.equal(1);
+    });
+
+    it('should return the same values as without cache', function () {
+        const mol = Molecule.fromSmiles('OC(=O)C(N)Cc1ccccc1');
+        const properties = new MoleculeProperties(mol);
+        const uncached = {
+            logP: properties.logP,
+            logS: properties.logS,
+            acceptorCount: properties.acceptorCount,
+            rotatableBondCount: properties.rotatableBondCount,
+            stereoCenterCount: properties.stereoCenterCount
+        };
+        MoleculeProperties.setCacheSize(10);
+        new MoleculeProperties(mol).logP.should.be.a.Number();
+        const cached = new MoleculeProperties(mol);
+        cached.logP.should.equal(uncached.logP);
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+        cached.logS.should.equal(uncached.logS);
+        cached.acceptorCount.should.equal(uncached.acceptorCount);
+        cached.rotatableBondCount.should.equal(uncached.rotatableBondCount);
+        cached.stereoCenterCount.should.equal(uncached.stereoCenterCount);
+    });
+
+    it('should evict the least recently used result at the size limit', function () {
+        MoleculeProperties.setCacheSize(2);
+        const a = Molecule.fromSmiles('CCO');
+        const b = Molecule.fromSmiles('CCN');
+        const c = Molecule.fromSmiles('CCC');
+        new MoleculeProperties(a).logP;
+        new MoleculeProperties(b).logP;
+        new MoleculeProperties(a).logP;   // hit, b becomes least recently used
+        new MoleculeProperties(c).logP;   // evicts b
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+        MoleculeProperties.getCacheMissCount().should.equal(3);
+        new MoleculeProperties(a).logP;
+        new MoleculeProperties(c).logP;
+        MoleculeProperties.getCacheHitCount().should.equal(3);
+        new MoleculeProperties(b).logP;
+        MoleculeProperties.getCacheMissCount().should.equal(4);
+    });
+
+    it('should stop caching when disabled and reset counters on clear', function () {
+        const mol = Molecule.fromSmiles('CCO');
+        MoleculeProperties.setCacheSize(10);
+        new MoleculeProperties(mol).logP;
+        new MoleculeProperties(mol).logP;
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+        MoleculeProperties.setCacheSize(0);
+        new MoleculeProperties(mol).logP.should.be.a.Number();
+        MoleculeProperties.getCacheHitCount().should.equal(1);
+        MoleculeProperties.getCacheMissCount().should.equal(1);
+        MoleculeProperties.clearCache();
+        MoleculeProperties.getCacheHitCount().should.equal(0);
+        MoleculeProperties.getCacheMissCount().should.equal(0);
+        MoleculeProperties.setCacheSize(10);
+        new MoleculeProperties(mol).logP;
+        MoleculeProperties.getCacheMissCount().should.equal(1);
+    });
+
+    it('should cache toxicity risks per risk type', function () {
+        const predictor = new ToxicityPredictor();
+        const mol = Molecule.fromSmiles('O=C1C=CC(=O)C=C1');
+        const uncached = predictor.assessRisk(mol, ToxicityPredictor.TYPE_IRRITANT);
+        ToxicityPredictor.setCacheSize(10);
+        predictor.assessRisk(mol, ToxicityPredictor.TYPE_IRRITANT).should.equal(uncached);
+        predictor.assessRisk(mol, ToxicityPredictor.TYPE_IRRITANT).should.equal(uncached);
+        ToxicityPredictor.getCacheMissCount().should.equal(1);
+        ToxicityPredictor.getCacheHitCount().should.equal(1);
+        predictor.assessRisk(mol, ToxicityPredictor.TYPE_MUTAGENIC).should.be.a.Number();
+        ToxicityPredictor.getCacheMissCount().should.equal(2);
+    });
+
+    it('should cache druglikeness together with its detail', function () {
+        const predictor = new DruglikenessPredictor();
+        const mol = Molecule.fromSmiles('CC(=O)Nc1ccc(O)cc1');
+        const uncached = predictor.assessDruglikeness(mol);
+        const uncachedDetail = predictor.getDetail();
+        DruglikenessPredictor.setCacheSize(10);
+        predictor.assessDruglikeness(mol);
+        predictor.assessDruglikeness(Molecule.fromSmiles('CCO'));
+        predictor.assessDruglikeness(mol).should.equal(uncached);
+        predictor.getDetail().should.eql(uncachedDetail);
+        DruglikenessPredictor.getCacheHitCount().should.equal(1);
+        DruglikenessPredictor.getCacheMissCount().should.equal(2);
+    });
+
+});
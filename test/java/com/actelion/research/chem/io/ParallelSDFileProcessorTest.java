@@ -0,0 +1,97 @@
+package com.actelion.research.chem.io;
+
+import com.actelion.research.chem.Canonizer;
+import com.actelion.research.chem.MolfileCreator;
+import com.actelion.research.chem.SmilesParser;
+import com.actelion.research.chem.StereoMolecule;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Server-side test of ParallelSDFileProcessor, which is not part of the JavaScript build.
+ * It is run by the test-java target of build.xml (npm run test-java).
+ */
+public class ParallelSDFileProcessorTest {
+	private static final String[] SMILES = { "CCO", "c1ccccc1C(=O)O", "C[N+](C)(C)C", "OC(=O)C(N)Cc1ccccc1" };
+
+	private static String createSDFile(int recordCount) throws Exception {
+		StringBuilder sd = new StringBuilder();
+		for (int i=0; i<recordCount; i++) {
+			StereoMolecule mol = new StereoMolecule();
+			new SmilesParser().parse(mol, SMILES[i % SMILES.length]);
+			sd.append(new MolfileCreator(mol).getMolfile());
+			sd.append("> <ID>\nmol").append(i).append("\n\n");
+			if (i % 2 == 1)		// a field, which first occurs in the second record
+				sd.append("> <Odd>\n").append(i).append("\nsecond line\n\n");
+			sd.append("$$$$\n");
+			}
+		return sd.toString();
+		}
+
+	private static ArrayList<ParallelSDFileProcessor.Record> process(CompoundFileParser parser, int blockSize) {
+		final ArrayList<ParallelSDFileProcessor.Record> recordList = new ArrayList<>();
+		ParallelSDFileProcessor processor = new ParallelSDFileProcessor(3);
+		processor.setBlockSize(blockSize);
+		try {
+			processor.process(parser, new ParallelSDFileProcessor.RecordListener() {
+				@Override
+				public void recordProcessed(ParallelSDFileProcessor.Record record) {
+					recordList.add(record);
+					}
+				});
+			}
+		finally {
+			processor.shutdown();
+			}
+		return recordList;
+		}
+
+	@Test
+	public void processesSDFileParserWithoutFieldNames() throws Exception {
+		int recordCount = 50;
+		SDFileParser parser = new SDFileParser(new StringReader(createSDFile(recordCount)));
+		ArrayList<ParallelSDFileProcessor.Record> recordList = process(parser, 4);
+
+		assertEquals(recordCount, recordList.size());
+		assertArrayEquals(new String[] { "ID", "Odd" }, parser.getFieldNames());
+		for (int i=0; i<recordCount; i++) {
+			ParallelSDFileProcessor.Record record = recordList.get(i);
+			assertEquals(i, record.getIndex());
+			assertEquals("mol"+i, record.getFieldData(0));
+			assertEquals("mol"+i, record.getName());
+			assertEquals((i % 2 == 1) ? i+"\nsecond line" : null, record.getFieldData(1));
+
+			StereoMolecule mol = new StereoMolecule();
+			new SmilesParser().parse(mol, SMILES[i % SMILES.length]);
+			assertEquals(new Canonizer(mol).getIDCode(), record.getIDCode());
+			}
+		}
+
+	@Test
+	public void processesSDFileParserWithFieldNames() throws Exception {
+		SDFileParser parser = new SDFileParser(new StringReader(createSDFile(10)), new String[] { "Odd" });
+		ArrayList<ParallelSDFileProcessor.Record> recordList = process(parser, 3);
+
+		assertEquals(10, recordList.size());
+		assertArrayEquals(new String[] { "Odd" }, parser.getFieldNames());
+		assertEquals("3\nsecond line", recordList.get(3).getFieldData(0));
+		assertNull(recordList.get(4).getFieldData(0));
+		}
+
+	@Test
+	public void processesMappedSDFileParserWithoutFieldNames() throws Exception {
+		byte[] bytes = createSDFile(20).getBytes("UTF-8");
+		MappedSDFileParser parser = new MappedSDFileParser(java.nio.ByteBuffer.wrap(bytes), null);
+		ArrayList<ParallelSDFileProcessor.Record> recordList = process(parser, 5);
+
+		assertEquals(20, recordList.size());
+		assertEquals(Arrays.asList("ID", "Odd"), Arrays.asList(parser.getFieldNames()));
+		assertEquals("mol7", recordList.get(7).getFieldData(0));
+		assertEquals("7\nsecond line", recordList.get(7).getFieldData(1));
+		}
+	}
@@ -0,0 +1,150 @@
+'use strict';
+
+const OCL = require('../..');
+const Molecule = OCL.Molecule;
+
+// Compares the ring sizes of macrocyclic ring systems with the smallest rings
+// found by a breadth first search, which excludes the examined bond.
+
+// Creates a ring of ringSize atoms and adds bridges in the given order. Every bridge
+// is defined by its two end atoms followed by the number of atoms in between.
+function createRingSystem(ringSize, bridges) {
+    const mol = new Molecule();
+    for (let i = 0; i < ringSize; i++) {
+        mol.addAtom(6);
+    }
+    for (let i = 0; i < ringSize; i++) {
+        mol.addBond(i, (i + 1) % ringSize);
+    }
+    for (const bridge of bridges || []) {
+        addPath(mol, bridge[0], bridge[1], bridge[2]);
+    }
+    return mol;
+}
+
+function addPath(mol, atom1, atom2, pathAtoms) {
+    let previous = atom1;
+    for (let i = 0; i < pathAtoms; i++) {
+        const atom = mol.addAtom(6);
+        mol.addBond(previous, atom);
+        previous = atom;
+    }
+    mol.addBond(previous, atom2);
+}
+
+// Creates a macrocycle with bridges of random length between random atoms.
+// Short bridges create small rings fused to or bridging large ones.
+function createRandomRingSystem(random) {
+    const mol = createRingSystem(8 + random(20));
+    const bridges = 1 + random(4);
+    for (let i = 0; i < bridges; i++) {
+        const atom1 = random(mol.getAllAtoms());
+        const atom2 = random(mol.getAllAtoms());
+        if (atom1 !== atom2 && !isBonded(mol, atom1, atom2)) {
+            addPath(mol, atom1, atom2, random(16));
+        }
+    }
+
+    // a chain substituent shouldn't get a ring size
+    addPath(mol, random(mol.getAllAtoms()), mol.addAtom(6), random(3));
+    return mol;
+}
+
+// returns a function, which creates reproducible random integers below n
+function createRandom(seed) {
+    let state = seed;
+    return function (n) {
+        state = (state * 16807) % 2147483647;
+        return Math.floor((state - 1) / 2147483646 * n);
+    };
+}
+
+function isBonded(mol, atom1, atom2) {
+    for (let bond = 0; bond < mol.getAllBonds(); bond++) {
+        if ((mol.getBondAtom(0, bond) === atom1 && mol.getBondAtom(1, bond) === atom2)
+         || (mol.getBondAtom(0, bond) === atom2 && mol.getBondAtom(1, bond) === atom1)) {
+            return true;
+        }
+    }
+    return false;
+}
+
+function getExpectedBondRingSizes(mol) {
+    mol.ensureHelperArrays(Molecule.cHelperNeighbours);
+    const ringSize = [];
+    for (let bond = 0; bond < mol.getBonds(); bond++) {
+        const atom1 = mol.getBondAtom(0, bond);
+        const atom2 = mol.getBondAtom(1, bond);
+        const level = new Array(mol.getAtoms()).fill(0);
+        const queue = [atom1];
+        level[atom1] = 1;
+        for (let current = 0; current < queue.length && level[atom2] === 0; current++) {
+            const atom = queue[current];
+            for (let i = 0; i < mol.getConnAtoms(atom); i++) {
+                const connAtom = mol.getConnAtom(atom, i);
+                if (level[connAtom] === 0 && mol.getConnBond(atom, i) !== bond) {
+                    level[connAtom] = level[atom] + 1;
+                    queue.push(connAtom);
+                }
+            }
+        }
+        ringSize.push(level[atom2]);
+    }
+    return ringSize;
+}
+
+function getExpectedAtomRingSizes(mol, bondRingSize) {
+    const ringSize = new Array(mol.getAtoms()).fill(0);
+    for (let bond = 0; bond < mol.getBonds(); bond++) {
+        if (bondRingSize[bond] !== 0) {
+            for (let i = 0; i < 2; i++) {
+                const atom = mol.getBondAtom(i, bond);
+                if (ringSize[atom] === 0 || ringSize[atom] > bondRingSize[bond]) {
+                    ringSize[atom] = bondRingSize[bond];
+                }
+            }
+        }
+    }
+    return ringSize;
+}
+
+function checkRingSizes(mol) {
+    const expectedBondRingSize = getExpectedBondRingSizes(mol);
+    const expectedAtomRingSize = getExpectedAtomRingSizes(mol, expectedBondRingSize);
+    mol.ensureHelperArrays(Molecule.cHelperRings);
+    for (let bond = 0; bond < mol.getBonds(); bond++) {
+        mol.getBondRingSize(bond).should.equal(expectedBondRingSize[bond], 'bond ' + bond + ' of ' + mol.getIDCode());
+    }
+    for (let atom = 0; atom < mol.getAtoms(); atom++) {
+        mol.getAtomRingSize(atom).should.equal(expectedAtomRingSize[atom], 'atom ' + atom + ' of ' + mol.getIDCode());
+    }
+}
+
+describe('ring sizes of macrocyclic ring systems', function () {
+
+    // the random ring systems take a few seconds
+    this.timeout(10000);
+
+    it('should find the smallest rings of bridged macrocycles', function () {
+        // all rings have more than 7 members; some bonds are part of a large ring found
+        // for an earlier bond before their own smallest ring is found
+        checkRingSizes(createRingSystem(8, [[5, 1, 11], [12, 0, 2], [4, 13, 1]]));
+        checkRingSizes(createRingSystem(10, [[5, 3, 8], [13, 2, 1], [6, 14, 1]]));
+    });
+
+    it('should find the smallest rings of a macrocycle with fused small rings', function () {
+        checkRingSizes(createRingSystem(8, [[7, 4, 5], [9, 2, 2], [13, 6, 1]]));
+    });
+
+    it('should find the smallest rings of fused macrocycles', function () {
+        // three 14-membered rings fused in a row, the middle one sharing a bond with each
+        checkRingSizes(createRingSystem(14, [[3, 4, 12], [19, 20, 12]]));
+    });
+
+    it('should find the smallest rings of random macrocyclic ring systems', function () {
+        const random = createRandom(12345);
+        for (let i = 0; i < 300; i++) {
+            checkRingSizes(createRandomRingSystem(random));
+        }
+    });
+});
@@ -0,0 +1,33 @@
+'use strict';
+
+const OCL = require('../minimal');
+const Molecule = OCL.Molecule;
+const SSSearcherWithIndex = OCL.SSSearcherWithIndex;
+
+describe('SSSearcherWithIndex', function () {
+
+    const smiles = ['c1ccccc1', 'CCO', 'CCc1ccccc1', 'O=S(SC\\C=C)C\\C=C', 'Oc1ccccc1'];
+
+    const searcher = new SSSearcherWithIndex();
+    const idcodes = [];
+    let indexes = [];
+    for (const s of smiles) {
+        const mol = Molecule.fromSmiles(s);
+        idcodes.push(mol.getIDCode());
+        indexes = indexes.concat(Array.from(searcher.createIndex(mol)));
+    }
+
+    const fragment = Molecule.fromSmiles('c1ccccc1');
+    fragment.setFragment(true);
+
+    it('should find all hits in a batch', function () {
+        searcher.setFragment(fragment, null);
+        Array.from(searcher.findFragmentInMolecules(indexes, idcodes, 0)).should.eql([0, 2, 4]);
+    });
+
+    it('should stop after maxHits', function () {
+        searcher.setFragment(fragment, null);
+        Array.from(searcher.findFragmentInMolecules(indexes, idcodes, 2)).should.eql([0, 2]);
+    });
+
+});
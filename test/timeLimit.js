@@ -0,0 +1,67 @@
+'use strict';
+
+const OCL = require('..');
+const Molecule = OCL.Molecule;
+const ToxicityPredictor = OCL.ToxicityPredictor;
+const DruglikenessPredictor = OCL.DruglikenessPredictor;
+
+describe('Time limits of predictors', function () {
+
+    // a negative time limit stops every assessment at once, which lets the
+    // tests check the timeout results without depending on the clock
+    const expired = -1;
+
+    const molecule = Molecule.fromSmiles('OC(=O)C1CCN(CC1)C(=O)c1cccc(Cl)c1');
+
+    afterEach(function () {
+        ToxicityPredictor.setTimeLimit(0);
+        ToxicityPredictor.setCacheSize(0);
+        ToxicityPredictor.clearCache();
+        DruglikenessPredictor.setTimeLimit(0);
+        DruglikenessPredictor.setCacheSize(0);
+        DruglikenessPredictor.clearCache();
+    });
+
+    it('should return RISK_UNKNOWN when the toxicity assessment times out', function () {
+        const predictor = new ToxicityPredictor();
+        ToxicityPredictor.setTimeLimit(expired);
+        predictor.assessRisk(molecule, ToxicityPredictor.TYPE_MUTAGENIC).should.equal(ToxicityPredictor.RISK_UNKNOWN);
+    });
+
+    it('should not limit the toxicity assessment with a limit of 0', function () {
+        const predictor = new ToxicityPredictor();
+        ToxicityPredictor.setTimeLimit(0);
+        predictor.assessRisk(molecule, ToxicityPredictor.TYPE_MUTAGENIC).should.not.equal(ToxicityPredictor.RISK_UNKNOWN);
+    });
+
+    it('should return DRUGLIKENESS_UNKNOWN when the druglikeness assessment times out', function () {
+        const predictor = new DruglikenessPredictor();
+        DruglikenessPredictor.setTimeLimit(expired);
+        predictor.assessDruglikeness(molecule).should.equal(DruglikenessPredictor.DRUGLIKENESS_UNKNOWN);
+    });
+
+    it('should not limit the druglikeness assessment with a limit of 0', function () {
+        const predictor = new DruglikenessPredictor();
+        DruglikenessPredictor.setTimeLimit(0);
+        predictor.assessDruglikeness(molecule).should.not.equal(DruglikenessPredictor.DRUGLIKENESS_UNKNOWN);
+    });
+
+    it('should not cache results of assessments, which timed out', function () {
+        const toxicityPredictor = new ToxicityPredictor();
+        ToxicityPredictor.setCacheSize(10);
+        ToxicityPredictor.setTimeLimit(expired);
+        toxicityPredictor.assessRisk(molecule, ToxicityPredictor.TYPE_IRRITANT).should.equal(ToxicityPredictor.RISK_UNKNOWN);
+        ToxicityPredictor.setTimeLimit(0);
+        toxicityPredictor.assessRisk(molecule, ToxicityPredictor.TYPE_IRRITANT).should.not.equal(ToxicityPredictor.RISK_UNKNOWN);
+        ToxicityPredictor.getCacheMissCount().should.equal(2);
+
+        const druglikenessPredictor = new DruglikenessPredictor();
+        DruglikenessPredictor.setCacheSize(10);
+        DruglikenessPredictor.setTimeLimit(expired);
+        druglikenessPredictor.assessDruglikeness(molecule).should.equal(DruglikenessPredictor.DRUGLIKENESS_UNKNOWN);
+        DruglikenessPredictor.setTimeLimit(0);
+        druglikenessPredictor.assessDruglikeness(molecule).should.not.equal(DruglikenessPredictor.DRUGLIKENESS_UNKNOWN);
+        DruglikenessPredictor.getCacheMissCount().should.equal(2);
+    });
+
+});